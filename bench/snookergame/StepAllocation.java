@@ -0,0 +1,80 @@
+package snookergame;
+
+import dist.HeadlessArena;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that stepping a PhysicsWorld allocates nothing. Breaks are played
+ * out a step at a time on fresh tables, in SUBSTEP and SWEPT mode, and the
+ * bytes the thread allocates are counted around the steps alone, so setting
+ * up each table isn't counted. The first shots are played to let the JIT
+ * compile the step before anything is counted. Exits with a status of 1 if
+ * any step allocated, so it can be run as a check.
+ *
+ * The rules are taken off each table, as they keep a list of the balls
+ * pocketed in each shot, which is no part of stepping the world. Each table
+ * is also stepped once before its shot, as the snapshots handed to the
+ * renderer are created the first time they are needed, once for the life of
+ * the table.
+ *
+ * Build and run from the top of the repository with:
+ * <pre>
+ * javac -d out $(find src bench -name '*.java')
+ * java -Djava.awt.headless=true -cp out snookergame.StepAllocation
+ * </pre>
+ * Counting allocations is an extension of the HotSpot JVM, so this can't be
+ * run on JVMs without it.
+ *
+ * @author DominicWild
+ */
+public class StepAllocation {
+
+    private static final int WARMUP_SHOTS = 300;        //The shots played before counting, for the JIT to compile the step.
+    private static final int MEASURED_SHOTS = 100;      //The shots counted.
+
+    /**
+     * Runs the check in each mode, printing the bytes allocated per step.
+     *
+     * @param args Not used.
+     */
+    public static void main(String[] args) {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            System.out.println("This JVM can't count the bytes allocated by a thread.");
+            System.exit(2);
+        }
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        counter.setThreadAllocatedMemoryEnabled(true);
+        long id = Thread.currentThread().getId();
+
+        boolean allocated = false;
+        for (PhysicsWorld.Mode mode : new PhysicsWorld.Mode[]{PhysicsWorld.Mode.SUBSTEP, PhysicsWorld.Mode.SWEPT}) {
+            long bytes = 0, steps = 0;
+            for (int shot = 0; shot < WARMUP_SHOTS + MEASURED_SHOTS; shot++) {
+                SnookerTable table = new SnookerTable(new HeadlessArena(800, 600), 100);
+                PhysicsWorld world = table.getPhysics();
+                world.removeTurnListener(table.getGame());
+                world.setMode(mode);
+                world.step();
+                table.getWhiteBall().setSpeed(10 + shot % 21, (shot % 13) - 6); //A spread of breaks, hitting the pack at different speeds and angles.
+
+                long before = counter.getThreadAllocatedBytes(id);
+                int n = 0;
+                do {
+                    world.step();
+                    n++;
+                } while (world.getAwakeCount() > 0);
+                long after = counter.getThreadAllocatedBytes(id);
+
+                if (shot >= WARMUP_SHOTS) {
+                    bytes += after - before;
+                    steps += n;
+                }
+            }
+            System.out.printf("%s: %d bytes allocated over %d steps (%.3f bytes per step)%n", mode, bytes, steps, (double) bytes / steps);
+            allocated |= bytes > 0;
+        }
+        System.exit(allocated ? 1 : 0);
+    }
+}
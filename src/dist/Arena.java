@@ -0,0 +1,134 @@
+package dist;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+
+/**
+ * The operations a game needs from the place its shapes are shown in.
+ * GameArena shows them in a window; HeadlessArena just remembers its size,
+ * so a game can be built and played with no display at all.
+ */
+public interface Arena
+{
+	/** 
+	 * Gets the width of the arena, in pixels.
+	 * @return the width in pixels
+	 */
+	public int getArenaWidth();
+
+	/** 
+	 * Gets the height of the arena, in pixels.
+	 * @return the height in pixels
+	 */
+	public int getArenaHeight();
+
+	/**
+	 * Adds a given Ball to the arena. 
+	 * @param b the ball to add to the arena.
+	 */
+	public void addBall(Circle b);
+
+	/**
+	 * Adds a given Rectangle to the arena. 
+	 * @param r the rectangle to add to the arena.
+	 */
+	public void addRectangle(Rectangle r);
+
+	/**
+	 * Adds a given Line to the arena. 
+	 * @param l the line to add to the arena.
+	 */
+	public void addLine(Line l);
+
+	/**
+	 * Adds a given Text object to the arena. 
+	 * @param t the text object to add to the arena.
+	 */
+	public void addText(Text t);
+
+	/**
+	 * Adds any shape to the arena. 
+	 * @param d the shape to add to the arena.
+	 */
+	public void addDrawable(Drawable d);
+
+	/**
+	 * Remove a Ball from the arena. 
+	 * @param b the ball to remove from the arena.
+	 */
+	public void removeBall(Circle b);
+
+	/**
+	 * Remove a Rectangle from the arena. 
+	 * @param r the rectangle to remove from the arena.
+	 */
+	public void removeRectangle(Rectangle r);
+
+	/**
+	 * Remove a Line from the arena. 
+	 * @param l the line to remove from the arena.
+	 */
+	public void removeLine(Line l);
+
+	/**
+	 * Remove a Text object from the arena. 
+	 * @param t the text object to remove from the arena.
+	 */
+	public void removeText(Text t);
+
+	/**
+	 * Remove any shape from the arena. 
+	 * @param d the shape to remove from the arena.
+	 */
+	public void removeDrawable(Drawable d);
+
+	/**
+	 * Marks a shape as static, or no longer static. Static shapes never change and sit beneath
+	 * every other shape, so they need only be drawn once.
+	 * @param shape the shape to mark.
+	 * @param isStatic true if the shape is static.
+	 */
+	public void setStatic(Drawable shape, boolean isStatic);
+
+	/**
+	 * Marks every shape on a layer as static, or no longer static.
+	 * @param layer the layer to mark.
+	 * @param isStatic true if the shapes on the layer are static.
+	 */
+	public void setLayerStatic(int layer, boolean isStatic);
+
+	/**
+	 * Has the arena draw its next frame straight away, for when something it shows has been
+	 * changed other than through the setters of its shapes.
+	 */
+	public void requestFrame();
+
+	/**
+	 * Adds a listener told each time the arena starts drawing a frame.
+	 * @param l the listener to add.
+	 */
+	public void addFrameListener(FrameListener l);
+
+	/**
+	 * Removes a listener told each time the arena starts drawing a frame.
+	 * @param l the listener to remove.
+	 */
+	public void removeFrameListener(FrameListener l);
+
+	/**
+	 * Adds a listener for mouse button events in the arena.
+	 * @param l the listener to add.
+	 */
+	public void addMouseListener(MouseListener l);
+
+	/**
+	 * Adds a listener for mouse movement in the arena.
+	 * @param l the listener to add.
+	 */
+	public void addMouseMotionListener(MouseMotionListener l);
+
+	/**
+	 * Removes a listener for mouse movement in the arena.
+	 * @param l the listener to remove.
+	 */
+	public void removeMouseMotionListener(MouseMotionListener l);
+}
@@ -0,0 +1,135 @@
+package dist;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A window showing several GameArenas side by side, in a grid of viewports, all drawn by one
+ * RenderScheduler. Clicking an arena gives it the keyboard and has it drawn at the focused
+ * frame rate; the rest are drawn at the background rate.
+ */
+public class ArenaGrid
+{
+	private JFrame window;
+	private JPanel grid;
+	private RenderScheduler scheduler;
+	private CopyOnWriteArrayList<GameArena> arenas = new CopyOnWriteArrayList<GameArena>();
+
+	/**
+	 * Create an empty grid window.
+	 *
+	 * @param title the title of the window.
+	 * @param columns the number of arenas across each row of the grid.
+	 * @param scheduler the scheduler to draw the arenas in the grid.
+	 */
+	public ArenaGrid(String title, int columns, RenderScheduler scheduler)
+	{
+		this.scheduler = scheduler;
+
+		grid = new JPanel(new GridLayout(0, columns));
+		grid.setBackground(Color.BLACK);
+
+		window = new JFrame();
+		window.setTitle(title);
+		window.setBackground(Color.BLACK);
+		window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		window.setContentPane(grid);
+
+		window.addComponentListener(new ComponentAdapter()
+		{
+			public void componentResized(ComponentEvent e)
+			{
+				requestFrames();
+			}
+
+			public void componentShown(ComponentEvent e)
+			{
+				requestFrames();
+			}
+		});
+
+		window.addWindowStateListener(new WindowStateListener()
+		{
+			public void windowStateChanged(WindowEvent e)
+			{
+				requestFrames();
+			}
+		});
+	}
+
+	/**
+	 * Creates a GameArena in the next cell of the grid. The first arena created is focused.
+	 *
+	 * @param width the width of the arena.
+	 * @param height the height of the arena.
+	 * @return the arena created.
+	 */
+	public GameArena addArena(final int width, final int height)
+	{
+		final GameArena arena = new GameArena(width, height, scheduler);
+		arenas.add(arena);
+		if (scheduler.getFocused() == null)
+			scheduler.setFocused(arena);
+
+		this.onSwing(new Runnable()
+		{
+			public void run()
+			{
+				grid.add(arena);
+				window.pack();
+				window.setVisible(true);
+			}
+		});
+
+		return arena;
+	}
+
+	/**
+	 * Gets the arenas in the grid, in the order they were created.
+	 * @return the arenas in the grid.
+	 */
+	public ArrayList<GameArena> getArenas()
+	{
+		return new ArrayList<GameArena>(arenas);
+	}
+
+	/**
+	 * Gets the scheduler drawing the arenas in the grid.
+	 * @return the scheduler of the grid.
+	 */
+	public RenderScheduler getScheduler()
+	{
+		return scheduler;
+	}
+
+	/**
+	 * Has a frame of every arena drawn, as the screen may no longer hold the last ones drawn.
+	 */
+	private void requestFrames()
+	{
+		for (GameArena a : arenas)
+			a.requestFrame();
+	}
+
+	/**
+	 * Runs a change to the window on the Swing thread, waiting for it to be made.
+	 *
+	 * @param r the change to make.
+	 */
+	private void onSwing(Runnable r)
+	{
+		if (SwingUtilities.isEventDispatchThread())
+		{
+			r.run();
+			return;
+		}
+
+		try
+		{
+			SwingUtilities.invokeAndWait(r);
+		}
+		catch (Exception e) {}
+	}
+}
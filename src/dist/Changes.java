@@ -0,0 +1,87 @@
+package dist;
+
+/**
+ * Counts changes to what a GameArena shows, so an arena with nothing new to draw can wait for
+ * the next change instead of drawing the same frame over and over. Each arena keeps a count of
+ * its own: shapes count a change on the arena they were last added to each time one of their
+ * setters is called, and arenas count each time they are given input or have shapes added or
+ * removed. A change to one arena wakes only that arena. A count may pass its changes on to
+ * another, so one thread can wait for a change to any of several arenas, as a RenderScheduler
+ * does.
+ */
+class Changes
+{
+	private final Changes parent;				// The count told of every change to this one, if any.
+	private volatile long count;				// The number of changes so far.
+	private int waiting;						// The number of threads waiting for a change.
+
+	/**
+	 * Create a count of changes.
+	 */
+	Changes()
+	{
+		this(null);
+	}
+
+	/**
+	 * Create a count of changes that passes each of its changes on to another.
+	 *
+	 * @param parent the count to tell of every change to this one, or null.
+	 */
+	Changes(Changes parent)
+	{
+		this.parent = parent;
+	}
+
+	/**
+	 * Records a change, waking any threads waiting for one.
+	 */
+	void signal()
+	{
+		synchronized (this)
+		{
+			count++;
+			if (waiting > 0)
+				this.notifyAll();
+		}
+
+		if (parent != null)
+			parent.signal();
+	}
+
+	/**
+	 * Gets the number of changes so far, to be compared with later.
+	 * @return the number of changes.
+	 */
+	long count()
+	{
+		return count;
+	}
+
+	/**
+	 * Waits until there have been changes since a given count, or until a time limit is up.
+	 *
+	 * @param seen the count of changes already dealt with.
+	 * @param millis the longest time to wait, in milliseconds.
+	 * @return true if there have been changes, false if the time limit was reached first.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	synchronized boolean await(long seen, long millis) throws InterruptedException
+	{
+		long end = System.currentTimeMillis() + millis;
+
+		waiting++;
+		try
+		{
+			long left;
+			while (count == seen && (left = end - System.currentTimeMillis()) > 0)
+				this.wait(left);
+
+			return count != seen;
+		}
+		finally
+		{
+			waiting--;
+		}
+	}
+}
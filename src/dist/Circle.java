@@ -1,13 +1,16 @@
 package dist;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 
 /**
  * Models a simple solid sphere. 
  * This class represents a Ball object. When combined with the GameArena class,
  * instances of the Ball class can be displayed on the screen.
  */
-public class Circle 
+public class Circle implements Drawable, Tracked
 {
 	// The following instance variables define the
 	// information needed to represent a Ball
@@ -18,6 +21,8 @@ public class Circle
 	protected double yPosition;			// The Y coordinate of this Ball
 	private double size;				// The diameter of this Ball
 	private String colour = "WHITE";	// The colour of this Ball
+	private Color drawColour;			// The colour of this Ball, as looked up in the Colours palette
+	private SpriteAtlas.Sprites sprites;	// The images this Ball is drawn with, or null if it is too big for them
 
 										// Permissable colours are:
 										// BLACK, BLUE, CYAN, DARKGREY, GREY,
@@ -25,6 +30,8 @@ public class Circle
 										// PINK, RED, WHITE, YELLOW, BROWN
 
 	private int layer;					// Layer the ball is on. Higher layers take priority.
+	private int revision;				// The number of changes made to this Ball, so a GameArena can tell it has changed.
+	private volatile Changes changes;	// The changes of the arena showing this Ball, told each time it changes.
 
 	
 
@@ -57,6 +64,7 @@ public class Circle
 	public void setXPosition(double x)
 	{
 		this.xPosition = x;
+		this.changed();
 	}
 
 	/**
@@ -66,6 +74,17 @@ public class Circle
 	public void setYPosition(double y)
 	{
 		this.yPosition = y;
+		this.changed();
+	}
+
+	/**
+	 * Records that this Ball has changed, so a GameArena showing it draws it again. Subclasses
+	 * that move or alter the Ball without going through the setters here should call this.
+	 */
+	protected void changed()
+	{
+		this.revision++;
+		this.signal();
 	}
 
 	/**
@@ -96,6 +115,96 @@ public class Circle
 		return layer;
 	}
 
+	/**
+	 * Obtains the revision of this Ball, which goes up each time it is changed.
+	 * @return the number of changes made to this Ball.
+	 */
+	public int getRevision()
+	{
+		return revision;
+	}
+
+	/**
+	 * Sets the count of changes this Ball counts its changes on. Called by GameArena as the
+	 * Ball is added.
+	 * @param changes the count of the arena showing this Ball.
+	 */
+	public void setChanges(Changes changes)
+	{
+		this.changes = changes;
+	}
+
+	//
+	// Counts a change on the arena showing this Ball, if any, so it draws it again.
+	//
+	private void signal()
+	{
+		Changes c = changes;
+		if (c != null)
+			c.signal();
+	}
+
+	/**
+	 * Works out the area this Ball covers when drawn.
+	 * @param g the graphics the Ball will be drawn with.
+	 * @param bounds where to put the area covered.
+	 */
+	public void getBounds(Graphics2D g, Rectangle2D.Double bounds)
+	{
+		double r = this.getSize()/2;
+		bounds.setRect(this.getDrawXPosition() - r, this.getDrawYPosition() - r, this.getSize(), this.getSize());
+	}
+
+	/**
+	 * Draws this Ball.
+	 * @param g the graphics to draw the Ball with.
+	 */
+	public void draw(Graphics2D g)
+	{
+		if (!this.isDrawVisible())
+			return;
+
+		double x = this.getDrawXPosition();
+		double y = this.getDrawYPosition();
+
+		if (sprites != null)
+		{
+			sprites.draw(g, x, y);
+			return;
+		}
+
+		g.setColor(drawColour);
+		g.fillOval((int)(x-size/2), (int)(y-size/2), (int)size, (int)size);
+	}
+
+	/**
+	 * Obtains the position this Ball is drawn at, which is its current position unless a
+	 * subclass draws it from somewhere else, such as a snapshot of a game taken on another thread.
+	 * @return the X coordinate this Ball is drawn at.
+	 */
+	protected double getDrawXPosition()
+	{
+		return this.getXPosition();
+	}
+
+	/**
+	 * Obtains the position this Ball is drawn at. See getDrawXPosition().
+	 * @return the Y coordinate this Ball is drawn at.
+	 */
+	protected double getDrawYPosition()
+	{
+		return this.getYPosition();
+	}
+
+	/**
+	 * Determines if this Ball is drawn at all. Always true, unless a subclass hides it.
+	 * @return true if this Ball is drawn.
+	 */
+	protected boolean isDrawVisible()
+	{
+		return true;
+	}
+
 
     /** 
      * Create a Ball of the given size, position and colour
@@ -111,6 +220,8 @@ public class Circle
 		yPosition = y;
 		size = diameter;
 		colour = col;
+		drawColour = Colours.fromString(col);
+		sprites = SpriteAtlas.getShared().getSprites(drawColour, diameter);
 		layer = 0;
 	}	
 
@@ -129,6 +240,8 @@ public class Circle
 		yPosition = y;
 		size = diameter;
 		colour = col;
+		drawColour = Colours.fromString(col);
+		sprites = SpriteAtlas.getShared().getSprites(drawColour, diameter);
 		layer = lay;
 	}
         
@@ -140,7 +253,22 @@ public class Circle
      * @return If the 2 points as circles overlap.
      */
     public static boolean circlePointColide(Point2D.Double p1, Point2D.Double p2, double d){
-            return Math.pow(p1.x - p2.x, 2) + Math.pow(p2.y - p1.y, 2) <= Math.pow(d, 2);
+            return circlePointColide(p1.x, p1.y, p2.x, p2.y, d);
+        }
+    
+    /**
+     * Returns if 2 points collide or overlap, around a distance d from each other,
+     * without needing the points as objects.
+     * @param x1 The X coordinate of the first point.
+     * @param y1 The Y coordinate of the first point.
+     * @param x2 The X coordinate of the second point.
+     * @param y2 The Y coordinate of the second point.
+     * @param d The radius to check for overlap.
+     * @return If the 2 points as circles overlap.
+     */
+    public static boolean circlePointColide(double x1, double y1, double x2, double y2, double d){
+            double dx = x1 - x2, dy = y2 - y1;
+            return dx * dx + dy * dy <= d * d;
         }
     
     /**
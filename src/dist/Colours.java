@@ -0,0 +1,61 @@
+package dist;
+import java.awt.Color;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The palette of colours shapes can be drawn in, looked up by name. Names are not case
+ * sensitive. Shapes look their colour up once, when they are created or recoloured, rather
+ * than each time they are drawn. Further colours can be added with register().
+ */
+public class Colours
+{
+	private static final ConcurrentHashMap<String, Color> palette = new ConcurrentHashMap<String, Color>();
+
+	static
+	{
+		register("BLACK", Color.BLACK);
+		register("BLUE", Color.BLUE);
+		register("CYAN", Color.CYAN);
+		register("DARKGREY", Color.DARK_GRAY);
+		register("GREY", Color.GRAY);
+		register("GREEN", Color.GREEN);
+		register("LIGHTGREY", Color.LIGHT_GRAY);
+		register("MAGENTA", Color.MAGENTA);
+		register("ORANGE", Color.ORANGE);
+		register("PINK", Color.PINK);
+		register("RED", Color.RED);
+		register("WHITE", Color.WHITE);
+		register("YELLOW", Color.YELLOW);
+		register("BROWN", new Color(109, 39, 5));
+		register("DARKGREEN", new Color(0, 100, 0));
+		register("LIGHTBLACK", new Color(40, 40, 40));
+	}
+
+	/**
+	 * Adds a colour to the palette, or changes an existing one. Shapes already created in the
+	 * colour keep the colour they were created with until they are recoloured.
+	 *
+	 * @param name the name of the colour.
+	 * @param colour the colour to draw shapes of that name in.
+	 */
+	public static void register(String name, Color colour)
+	{
+		palette.put(name.toUpperCase(Locale.ROOT), colour);
+	}
+
+	/**
+	 * Looks up a colour in the palette.
+	 *
+	 * @param name the name of the colour.
+	 * @return the colour of that name, or white if there is no colour of that name.
+	 */
+	public static Color fromString(String name)
+	{
+		Color colour = palette.get(name);
+		if (colour == null)
+			colour = palette.get(name.toUpperCase(Locale.ROOT));
+
+		return colour == null ? Color.WHITE : colour;
+	}
+}
@@ -0,0 +1,148 @@
+package dist;
+import java.util.*;
+
+/**
+ * The shapes in a GameArena, in the order they are drawn: by layer, lowest first, and within a
+ * layer, the most recently added first. The shapes are kept in one doubly linked list, with the
+ * first node of each layer indexed by layer and the node of each shape indexed by the shape
+ * itself, so shapes can be added to an existing layer and removed without searching or shifting
+ * the list. Walking the list from first() allocates nothing.
+ */
+class DrawList
+{
+	/**
+	 * A shape in the list.
+	 */
+	static final class Node
+	{
+		final Drawable thing;			// The shape drawn.
+		final int layer;			// The layer the shape was added on.
+		Node prev;					// The shape drawn before this one.
+		Node next;					// The shape drawn after this one.
+
+		Node(Drawable thing, int layer)
+		{
+			this.thing = thing;
+			this.layer = layer;
+		}
+	}
+
+	private Node head;												// The first shape drawn.
+	private Node tail;												// The last shape drawn.
+	private TreeMap<Integer, Node> layers = new TreeMap<Integer, Node>();	// The first node of each layer that has any shapes.
+	private IdentityHashMap<Drawable, Node> index = new IdentityHashMap<Drawable, Node>();	// The node of each shape in the list.
+
+	/**
+	 * Adds a shape to the front of its layer. Adding a shape that is already in the list has no effect.
+	 *
+	 * @param o the shape to add.
+	 * @param layer the layer to draw the shape on.
+	 * @return true if the shape was added, false if it was already in the list.
+	 */
+	boolean add(Drawable o, int layer)
+	{
+		if (index.containsKey(o))
+			return false;
+
+		Node n = new Node(o, layer);
+		Node before = layers.get(layer);
+
+		// A new layer goes before the first layer above it.
+		if (before == null)
+		{
+			Map.Entry<Integer, Node> above = layers.higherEntry(layer);
+			before = above == null ? null : above.getValue();
+		}
+
+		if (before == null)
+		{
+			n.prev = tail;
+			if (tail != null)
+				tail.next = n;
+			else
+				head = n;
+			tail = n;
+		}
+		else
+		{
+			n.prev = before.prev;
+			n.next = before;
+			if (before.prev != null)
+				before.prev.next = n;
+			else
+				head = n;
+			before.prev = n;
+		}
+
+		layers.put(layer, n);
+		index.put(o, n);
+		return true;
+	}
+
+	/**
+	 * Removes a shape from the list.
+	 *
+	 * @param o the shape to remove.
+	 * @return true if the shape was removed, false if it wasn't in the list.
+	 */
+	boolean remove(Drawable o)
+	{
+		Node n = index.remove(o);
+		if (n == null)
+			return false;
+
+		// Hand the start of the layer on to the next shape, or drop the layer if it is now empty.
+		if (layers.get(n.layer) == n)
+		{
+			if (n.next != null && n.next.layer == n.layer)
+				layers.put(n.layer, n.next);
+			else
+				layers.remove(n.layer);
+		}
+
+		if (n.prev != null)
+			n.prev.next = n.next;
+		else
+			head = n.next;
+
+		if (n.next != null)
+			n.next.prev = n.prev;
+		else
+			tail = n.prev;
+
+		n.prev = null;
+		n.next = null;
+		return true;
+	}
+
+	/**
+	 * Determines if a shape is in the list.
+	 *
+	 * @param o the shape.
+	 * @return true if the shape is in the list.
+	 */
+	boolean contains(Drawable o)
+	{
+		return index.containsKey(o);
+	}
+
+	/**
+	 * Gets the first shape drawn. Follow each node's next to walk the rest of the list in drawing order.
+	 *
+	 * @return the first node, or null if the list is empty.
+	 */
+	Node first()
+	{
+		return head;
+	}
+
+	/**
+	 * Gets the number of shapes in the list.
+	 *
+	 * @return the number of shapes.
+	 */
+	int size()
+	{
+		return index.size();
+	}
+}
@@ -0,0 +1,41 @@
+package dist;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * A shape that can be shown in a GameArena. Circle, Rectangle, Line and Text are all
+ * Drawables, and any other class that implements this interface can be added to a
+ * GameArena in the same way and drawn alongside them.
+ */
+public interface Drawable
+{
+	/**
+	 * Obtains the layer of this shape. Higher layers are drawn on top of lower layers.
+	 * The layer should not change once the shape has been added to a GameArena.
+	 * @return the layer of this shape.
+	 */
+	public int getLayer();
+
+	/**
+	 * Obtains the revision of this shape, which must go up each time it is changed in a way
+	 * that alters how it is drawn other than where it is, such as its colour or text.
+	 * A GameArena checks where a shape is each frame, so moving it need not change the revision.
+	 * @return the number of changes made to this shape.
+	 */
+	public int getRevision();
+
+	/**
+	 * Works out the area this shape covers when drawn. Any pixel the shape may draw to must lie
+	 * within it, or it may be left behind when the shape moves.
+	 *
+	 * @param g the graphics the shape will be drawn with, for measuring text.
+	 * @param bounds where to put the area covered, so nothing need be allocated each frame.
+	 */
+	public void getBounds(Graphics2D g, Rectangle2D.Double bounds);
+
+	/**
+	 * Draws this shape.
+	 * @param g the graphics to draw the shape with.
+	 */
+	public void draw(Graphics2D g);
+}
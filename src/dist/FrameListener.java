@@ -0,0 +1,15 @@
+package dist;
+
+/**
+ * Told by a GameArena each time it starts drawing a frame, before any shape is measured or
+ * drawn. A game whose shapes are moved on another thread can use this to settle, once per
+ * frame, which state of the game the frame shows, so every shape in the frame shows the same one.
+ */
+public interface FrameListener
+{
+	/**
+	 * Called on the thread drawing the frame, as it starts. A GameArena never starts two frames
+	 * at once, so this is never called again before an earlier call has returned.
+	 */
+	public void frameStarted();
+}
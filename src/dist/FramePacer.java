@@ -0,0 +1,158 @@
+package dist;
+
+/**
+ * Paces a render loop to a target frame rate. Each frame is due a fixed period
+ * after the last one was due, rather than a fixed period after the last one
+ * finished, so time spent drawing and oversleeping doesn't build up and the
+ * frame rate doesn't drift. The rate actually achieved, and how much the time
+ * between frames varies, are measured over each second.
+ */
+public class FramePacer
+{
+	private static final long SECOND = 1000000000L;
+	private static final long SPIN_NANOS = 1000000L;	// How close to a frame the pacer stops sleeping and yields instead, as sleeps can overshoot.
+
+	private long period;					// The time between frames, in nanoseconds.
+	private long next;						// When the next frame is due, or 0 before the first frame.
+	private long last;						// When the last frame started.
+	private boolean paused;					// Whether the loop has been idle since the last frame.
+
+	private long windowStart;				// When the current second of measurements started.
+	private int windowFrames;				// The frame intervals measured in the current second.
+	private double windowSum;				// The sum of the frame intervals measured in the current second.
+	private double windowSumSquares;		// The sum of the squares of the frame intervals measured in the current second.
+
+	private volatile double framesPerSecond;	// The frame rate achieved over the last whole second.
+	private volatile double jitterNanos;		// The standard deviation of the time between frames over the last whole second.
+
+	/**
+	 * Create a pacer for a given frame rate.
+	 *
+	 * @param targetFramesPerSecond the number of frames to aim for each second.
+	 */
+	public FramePacer(int targetFramesPerSecond)
+	{
+		this.setTargetFrameRate(targetFramesPerSecond);
+	}
+
+	/**
+	 * Changes the frame rate aimed for, from the next frame on.
+	 *
+	 * @param targetFramesPerSecond the number of frames to aim for each second.
+	 */
+	public synchronized void setTargetFrameRate(int targetFramesPerSecond)
+	{
+		if (targetFramesPerSecond <= 0)
+			throw new IllegalArgumentException("Frame rate must be positive: " + targetFramesPerSecond);
+
+		this.period = SECOND / targetFramesPerSecond;
+	}
+
+	/**
+	 * Gets the frame rate aimed for.
+	 * @return the number of frames aimed for each second.
+	 */
+	public synchronized int getTargetFrameRate()
+	{
+		return (int) (SECOND / period);
+	}
+
+	/**
+	 * Waits until the next frame is due. If the loop has fallen more than a whole frame behind,
+	 * the frames missed are dropped rather than drawn back to back to catch up.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public void awaitFrame() throws InterruptedException
+	{
+		long p;
+		synchronized (this)
+		{
+			p = period;
+		}
+
+		long now = System.nanoTime();
+		if (next == 0 || now - (next + p) > p)
+			next = now;
+		else
+			next += p;
+
+		long wait;
+		while ((wait = next - System.nanoTime()) > SPIN_NANOS)
+		{
+			wait -= SPIN_NANOS;
+			Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+		}
+		while (System.nanoTime() < next)
+			Thread.yield();
+
+		this.record(System.nanoTime());
+	}
+
+	/**
+	 * Tells the pacer the loop has stopped drawing frames for a while, such as while there is
+	 * nothing new to draw. The next frame is due as soon as it is waited for, and the gap before
+	 * it is left out of the measurements, so they measure the pacing of frames drawn rather than
+	 * how long the loop was idle. Called on the thread that waits for frames.
+	 */
+	public void pause()
+	{
+		next = 0;
+		paused = true;
+	}
+
+	//
+	// Adds the time since the last frame to the measurements for the current second.
+	//
+	private void record(long now)
+	{
+		if (last != 0 && paused)
+		{
+			// Leave the idle gap out of the current second, as if this frame followed straight on.
+			windowStart += now - last;
+		}
+		else if (last != 0)
+		{
+			double interval = now - last;
+			windowFrames++;
+			windowSum += interval;
+			windowSumSquares += interval * interval;
+		}
+		else
+		{
+			windowStart = now;
+		}
+		last = now;
+		paused = false;
+
+		if (now - windowStart >= SECOND && windowFrames > 0)
+		{
+			double mean = windowSum / windowFrames;
+			framesPerSecond = windowFrames * (double) SECOND / (now - windowStart);
+			jitterNanos = Math.sqrt(Math.max(0, windowSumSquares / windowFrames - mean * mean));
+
+			windowStart = now;
+			windowFrames = 0;
+			windowSum = 0;
+			windowSumSquares = 0;
+		}
+	}
+
+	/**
+	 * Gets the frame rate achieved over the last whole second.
+	 * @return the number of frames started in the last second.
+	 */
+	public double getFramesPerSecond()
+	{
+		return framesPerSecond;
+	}
+
+	/**
+	 * Gets how much the time between frames varied over the last whole second.
+	 * @return the standard deviation of the time between frames, in milliseconds.
+	 */
+	public double getJitterMillis()
+	{
+		return jitterNanos / 1000000.0;
+	}
+}
@@ -0,0 +1,202 @@
+package dist;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Keeps timings for the frames drawn by a GameArena: how long each frame took
+ * to draw, and how many bytes were allocated on the drawing thread while it
+ * was drawn, where the JVM is able to count them. Frames are drawn on one
+ * thread at a time, but the numbers may be read from any.
+ */
+public class FrameStats
+{
+	private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private long start;						// When the frame being drawn was started, in nanoseconds.
+	private long startBytes;				// The bytes allocated by the drawing thread when the frame was started.
+
+	private volatile long frames;			// The number of frames drawn.
+	private volatile long lastNanos;		// How long the last frame took to draw.
+	private volatile long maxNanos;			// The longest any frame took to draw.
+	private volatile long totalNanos;		// How long all frames took to draw.
+	private volatile long lastBytes = -1;	// The bytes allocated drawing the last frame, or -1 if they can't be counted.
+	private volatile long totalBytes;		// The bytes allocated drawing all frames.
+
+	private long frameDirty;				// The pixels drawn again in the frame being drawn.
+	private volatile long lastDirty;		// The pixels drawn again in the last frame.
+	private volatile long totalDirty;		// The pixels drawn again in all frames.
+
+	private volatile long skipped;			// The frames not drawn because nothing had changed.
+
+	/**
+	 * Marks the start of drawing a frame, on the thread that will draw it.
+	 */
+	public void frameStarted()
+	{
+		startBytes = allocatedBytes();
+		frameDirty = 0;
+		start = System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of drawing a frame, on the thread that drew it.
+	 */
+	public void frameEnded()
+	{
+		long nanos = System.nanoTime() - start;
+		long bytes = allocatedBytes();
+
+		lastNanos = nanos;
+		maxNanos = Math.max(maxNanos, nanos);
+		totalNanos += nanos;
+		if (bytes >= 0 && startBytes >= 0)
+		{
+			lastBytes = bytes - startBytes;
+			totalBytes += lastBytes;
+		}
+		lastDirty = frameDirty;
+		totalDirty += frameDirty;
+		frames++;
+	}
+
+	/**
+	 * Records the area of the frame being drawn that had to be drawn again.
+	 *
+	 * @param pixels the number of pixels drawn again.
+	 */
+	public void recordDirty(long pixels)
+	{
+		frameDirty += pixels;
+	}
+
+	/**
+	 * Records frames that weren't drawn because nothing had changed since the last one.
+	 *
+	 * @param frames the number of frames not drawn.
+	 */
+	public void recordSkipped(long frames)
+	{
+		skipped += frames;
+	}
+
+	/**
+	 * Clears the numbers kept so far.
+	 */
+	public void reset()
+	{
+		frames = 0;
+		lastNanos = 0;
+		maxNanos = 0;
+		totalNanos = 0;
+		lastBytes = -1;
+		totalBytes = 0;
+		lastDirty = 0;
+		totalDirty = 0;
+		skipped = 0;
+	}
+
+	/**
+	 * Gets the number of frames drawn.
+	 * @return the number of frames drawn since the numbers were last reset.
+	 */
+	public long getFrames()
+	{
+		return frames;
+	}
+
+	/**
+	 * Gets the number of frames not drawn because nothing had changed.
+	 * @return the number of frames skipped since the numbers were last reset.
+	 */
+	public long getSkippedFrames()
+	{
+		return skipped;
+	}
+
+	/**
+	 * Gets how long the last frame took to draw.
+	 * @return the time taken, in nanoseconds.
+	 */
+	public long getLastFrameNanos()
+	{
+		return lastNanos;
+	}
+
+	/**
+	 * Gets the longest any frame took to draw.
+	 * @return the time taken, in nanoseconds.
+	 */
+	public long getMaxFrameNanos()
+	{
+		return maxNanos;
+	}
+
+	/**
+	 * Gets the average time taken to draw a frame.
+	 * @return the average time taken, in nanoseconds.
+	 */
+	public double getAverageFrameNanos()
+	{
+		long f = frames;
+		return f == 0 ? 0 : (double) totalNanos / f;
+	}
+
+	/**
+	 * Gets the bytes allocated while drawing the last frame.
+	 * @return the bytes allocated, or -1 if the JVM can't count them.
+	 */
+	public long getLastFrameBytes()
+	{
+		return lastBytes;
+	}
+
+	/**
+	 * Gets the average bytes allocated while drawing a frame.
+	 * @return the average bytes allocated, or -1 if the JVM can't count them.
+	 */
+	public double getAverageFrameBytes()
+	{
+		long f = frames;
+		if (lastBytes < 0)
+			return -1;
+		return f == 0 ? 0 : (double) totalBytes / f;
+	}
+
+	/**
+	 * Gets the area of the last frame that had to be drawn again.
+	 * @return the number of pixels drawn again.
+	 */
+	public long getLastDirtyPixels()
+	{
+		return lastDirty;
+	}
+
+	/**
+	 * Gets the average area of a frame that had to be drawn again.
+	 * @return the average number of pixels drawn again.
+	 */
+	public double getAverageDirtyPixels()
+	{
+		long f = frames;
+		return f == 0 ? 0 : (double) totalDirty / f;
+	}
+
+	public String toString()
+	{
+		return String.format("frames=%d skipped=%d avg=%.3fms max=%.3fms avgBytes=%.0f avgDirty=%.0f", frames, skipped, getAverageFrameNanos() / 1e6, maxNanos / 1e6, getAverageFrameBytes(), getAverageDirtyPixels());
+	}
+
+	//
+	// Counting allocations is an extension of the HotSpot JVM, so fall back to -1 where it isn't there.
+	//
+	private static long allocatedBytes()
+	{
+		if (THREADS instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) THREADS;
+			if (t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled())
+				return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1;
+	}
+}
@@ -6,13 +6,16 @@ import java.awt.image.*;
 import java.awt.event.*;
 import java.util.*;
 import java.util.Collections;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 /**
  * This class provides a simple window in which grahical objects can be drawn. 
  * @author Joe Finney
  */
-public class GameArena extends JPanel implements Runnable, KeyListener, MouseListener, MouseMotionListener
+public class GameArena extends JPanel implements Arena, Runnable, KeyListener, MouseListener, MouseMotionListener
 {
 	// Size of playarea
 	private int arenaWidth;
@@ -24,7 +27,16 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 
 	private boolean exiting = false;
 
-	private ArrayList<Object> things = new ArrayList<Object>();
+	// The changes to what this arena shows, so it draws nothing while nothing has changed.
+	private final Changes changes;
+
+	private DrawList things = new DrawList();
+
+	// Changes to the drawlist are queued by whichever thread makes them and made by the thread
+	// drawing the next frame, before it draws, so callers never wait for a frame to finish and
+	// the drawlist is only ever touched by one thread at a time. Frames are drawn under paintLock.
+	private ConcurrentLinkedQueue<Command> commands = new ConcurrentLinkedQueue<Command>();
+	private final Object paintLock = new Object();
 
 	private boolean up = false;
 	private boolean down = false;
@@ -39,6 +51,98 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 
 	private JFrame window;
 
+	// An arena drawn by a RenderScheduler has no window or thread of its own. It sits in a window
+	// made elsewhere, such as by an ArenaGrid, and the scheduler's threads draw its frames.
+	private RenderScheduler scheduler;
+
+	// The image each frame is drawn into before being copied to the screen, kept from one frame
+	// to the next. An accelerated VolatileImage where possible, or a BufferedImage where not.
+	private VolatileImage volatileBuffer;
+	private BufferedImage imageBuffer;
+	private Graphics2D bufferGraphics;
+
+	private FrameStats frameStats = new FrameStats();
+	private volatile FrameListener[] frameListeners = new FrameListener[0];
+	private final Object frameListenerLock = new Object();
+
+	// Shapes that never change are drawn once over the cleared background into staticImage,
+	// which is copied in place of clearing each frame, and drawn again only when the static
+	// shapes change.
+	private Set<Drawable> staticThings = Collections.newSetFromMap(new IdentityHashMap<Drawable, Boolean>());
+	private Set<Integer> staticLayers = new HashSet<Integer>();
+	private BufferedImage staticImage;
+	private boolean staticDirty = true;
+
+	// The area each dynamic shape covered when it was last drawn, so only the part of the frame
+	// that has changed since, the union of the old and new areas of the shapes that changed, is
+	// drawn again. An empty dirty area has its start past its end.
+	private IdentityHashMap<Drawable, Drawn> drawn = new IdentityHashMap<Drawable, Drawn>();
+	private Drawn measured = new Drawn();
+	private Rectangle2D.Double bounds = new Rectangle2D.Double();
+	private boolean fullRepaint = true;
+	private int dirtyX0 = Integer.MAX_VALUE;
+	private int dirtyY0 = Integer.MAX_VALUE;
+	private int dirtyX1 = Integer.MIN_VALUE;
+	private int dirtyY1 = Integer.MIN_VALUE;
+
+	/**
+	 * A change to the drawlist, waiting for the next frame.
+	 */
+	private static class Command
+	{
+		static final int ADD = 0;
+		static final int REMOVE = 1;
+		static final int SET_STATIC = 2;
+		static final int CLEAR_STATIC = 3;
+		static final int SET_LAYER_STATIC = 4;
+		static final int CLEAR_LAYER_STATIC = 5;
+		static final int INVALIDATE_STATIC = 6;
+		static final int RESIZE = 7;
+
+		final int kind;
+		final Drawable shape;
+		final int layer;
+
+		Command(int kind, Drawable shape, int layer)
+		{
+			this.kind = kind;
+			this.shape = shape;
+			this.layer = layer;
+		}
+	}
+
+	/**
+	 * The area of the frame a shape covered when it was last drawn, and its revision at the time.
+	 */
+	private static class Drawn
+	{
+		int x0, y0, x1, y1;					// The pixels covered, with a pixel to spare for antialiasing.
+		double x, y, width, height;			// The exact bounds of the shape, so a move of less than a pixel is still seen.
+		int revision;
+	}
+
+	// In active rendering the render thread draws straight to the window through a BufferStrategy,
+	// paced to a target frame rate, rather than asking Swing to repaint.
+	private volatile boolean activeRendering = false;
+	private FramePacer pacer = new FramePacer(100);
+	private BufferStrategy strategy;
+
+	// In parallel rendering the dirty area is split into tiles, each drawn into an image of its own
+	// by a fork-join pool with only the shapes that overlap it, and the tiles are then copied
+	// into the frame. Each tile is described in tiles by its x, y, width, height and image.
+	private static final int TILE_SIZE = 128;
+	private volatile boolean parallelRendering = false;
+	private BufferedImage[] tileImages = new BufferedImage[0];
+	private ArrayList<Drawable> tileShapes = new ArrayList<Drawable>();
+	private ArrayList<Drawn> tileAreas = new ArrayList<Drawn>();
+	private int[] tiles = new int[0];
+	private int tileCount;
+
+	// While nothing changes no frames are drawn, other than one every IDLE_MILLIS to catch any
+	// change that wasn't counted.
+	private static final long PASSIVE_MILLIS = 10;
+	private static final long IDLE_MILLIS = 250;
+
 	/**
 	 * Create a view of a GameArena.
 	 * The GameArena will be created with the default size of 300x300 pixels.
@@ -48,6 +152,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	 */
 	public GameArena(int width, int height)
 	{
+		this.changes = new Changes();
 		this.window = new JFrame();
 		this.setSize(width, height);
 
@@ -63,17 +168,377 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 		window.addKeyListener(this);
 		this.addMouseListener(this);
 		this.addMouseMotionListener(this);
+		this.watchWindow();
+	}
+
+	/**
+	 * Create a GameArena drawn by a RenderScheduler, rather than by a thread of its own, and
+	 * with no window of its own. It is shown by adding it to a window, such as through an ArenaGrid.
+	 *
+	 * @param width the width of the arena.
+	 * @param height the height of the arena.
+	 * @param scheduler the scheduler to draw the arena's frames.
+	 */
+	public GameArena(int width, int height, RenderScheduler scheduler)
+	{
+		this.scheduler = scheduler;
+		this.changes = new Changes(scheduler.getChanges());
+		this.setSize(width, height);
+		this.setFocusable(true);
+
+		this.addKeyListener(this);
+		this.addMouseListener(this);
+		this.addMouseMotionListener(this);
+		this.addFocusListener(new FocusAdapter()
+		{
+			public void focusGained(FocusEvent e)
+			{
+				GameArena.this.scheduler.setFocused(GameArena.this);
+			}
+		});
+
+		scheduler.add(this);
+	}
+
+	/**
+	 * Has a frame drawn whenever the window is resized, shown or restored, as the screen may no
+	 * longer hold the last frame drawn.
+	 */
+	private void watchWindow()
+	{
+		window.addComponentListener(new ComponentAdapter()
+		{
+			public void componentResized(ComponentEvent e)
+			{
+				requestFrame();
+			}
+
+			public void componentShown(ComponentEvent e)
+			{
+				requestFrame();
+			}
+		});
+
+		window.addWindowStateListener(new WindowStateListener()
+		{
+			public void windowStateChanged(WindowEvent e)
+			{
+				requestFrame();
+			}
+		});
 	}
 
 	public void run() {
 		try {
+			long seen = changes.count() - 1;
 			while (true) {
-				this.repaint();
-				Thread.sleep(10);
+				long count = changes.count();
+				// Queueing a change to the drawlist counts as a change, so nothing queued is missed here.
+				if (count == seen)
+				{
+					// Nothing has changed since the last frame, so wait for something to. Every so often
+					// draw a frame anyway, in case something was changed without being counted.
+					long start = System.nanoTime();
+					boolean changed = changes.await(seen, IDLE_MILLIS);
+					frameStats.recordSkipped((System.nanoTime() - start) / this.getFramePeriodNanos());
+					pacer.pause();
+					if (changed)
+						continue;
+				}
+				seen = count;
+
+				if (!this.isShowing())
+				{
+					// There is nowhere to draw to, such as while minimised, so just make the queued
+					// changes to the drawlist rather than leaving them to build up.
+					this.drainCommands();
+				}
+				else if (activeRendering)
+				{
+					pacer.awaitFrame();
+					this.renderActive();
+				}
+				else
+				{
+					this.repaint();
+					Thread.sleep(PASSIVE_MILLIS);
+				}
 			}
 		} catch (InterruptedException iex) {}
 	}
 
+	/**
+	 * Makes the changes to the drawlist queued since the last frame without drawing one, for
+	 * when this GameArena isn't on screen.
+	 */
+	void drainCommands()
+	{
+		if (commands.isEmpty())
+			return;
+
+		synchronized (paintLock)
+		{
+			this.applyCommands();
+		}
+	}
+
+	/**
+	 * Gets the count of changes to what this GameArena shows.
+	 * @return the changes of this GameArena.
+	 */
+	Changes getChanges()
+	{
+		return changes;
+	}
+
+	/**
+	 * Queues a change to the drawlist for the next frame, and wakes the render thread to draw it.
+	 *
+	 * @param kind the kind of change.
+	 * @param shape the shape changed, if any.
+	 * @param layer the layer changed, if any.
+	 */
+	private void queue(int kind, Drawable shape, int layer)
+	{
+		commands.add(new Command(kind, shape, layer));
+		changes.signal();
+	}
+
+	/**
+	 * Makes the changes to the drawlist queued since the last frame, in the order they were made.
+	 * Called by the thread drawing the frame, under paintLock.
+	 */
+	private void applyCommands()
+	{
+		Command c;
+		while ((c = commands.poll()) != null)
+		{
+			switch (c.kind)
+			{
+				case Command.ADD:
+					if (things.add(c.shape, c.shape.getLayer()) && this.isStatic(c.shape))
+						staticDirty = true;
+					break;
+
+				case Command.REMOVE:
+					if (things.remove(c.shape) && this.isStatic(c.shape))
+						staticDirty = true;
+
+					// Whatever the shape covered must be drawn again without it.
+					Drawn d = drawn.remove(c.shape);
+					if (d != null)
+						this.addDirty(d.x0, d.y0, d.x1, d.y1);
+					break;
+
+				case Command.SET_STATIC:
+					staticThings.add(c.shape);
+					staticDirty = true;
+					break;
+
+				case Command.CLEAR_STATIC:
+					staticThings.remove(c.shape);
+					staticDirty = true;
+					break;
+
+				case Command.SET_LAYER_STATIC:
+					staticLayers.add(c.layer);
+					staticDirty = true;
+					break;
+
+				case Command.CLEAR_LAYER_STATIC:
+					staticLayers.remove(c.layer);
+					staticDirty = true;
+					break;
+
+				case Command.INVALIDATE_STATIC:
+					staticDirty = true;
+					break;
+
+				case Command.RESIZE:
+					this.releaseBuffer();
+					this.staticImage = null;
+					this.staticDirty = true;
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Gets the time between frames when there is something to draw.
+	 *
+	 * @return the time between frames, in nanoseconds.
+	 */
+	private long getFramePeriodNanos()
+	{
+		return activeRendering ? 1000000000L / pacer.getTargetFrameRate() : PASSIVE_MILLIS * 1000000L;
+	}
+
+	/**
+	 * Has the next frame drawn straight away. Changes made through the setters of shapes, and
+	 * shapes being added and removed, are noticed without calling this; it is only needed
+	 * when something shown has been changed some other way.
+	 */
+	public void requestFrame()
+	{
+		changes.signal();
+	}
+
+	/**
+	 * Adds a listener told each time this GameArena starts drawing a frame, on the thread
+	 * drawing it, before any shape is measured or drawn.
+	 *
+	 * @param l the listener to add.
+	 */
+	public void addFrameListener(FrameListener l)
+	{
+		synchronized (frameListenerLock)
+		{
+			FrameListener[] listeners = Arrays.copyOf(frameListeners, frameListeners.length + 1);
+			listeners[listeners.length - 1] = l;
+			frameListeners = listeners;
+		}
+	}
+
+	/**
+	 * Removes a listener told each time this GameArena starts drawing a frame.
+	 *
+	 * @param l the listener to remove.
+	 */
+	public void removeFrameListener(FrameListener l)
+	{
+		synchronized (frameListenerLock)
+		{
+			ArrayList<FrameListener> listeners = new ArrayList<FrameListener>(Arrays.asList(frameListeners));
+			listeners.remove(l);
+			frameListeners = listeners.toArray(new FrameListener[listeners.size()]);
+		}
+	}
+
+	/**
+	 * Switches between passive rendering, where Swing is asked to repaint the window about every
+	 * 10ms, and active rendering, where the render thread draws each frame to the window itself
+	 * at the frame rate set on the FramePacer.
+	 *
+	 * @param active true to render actively, false to leave repainting to Swing.
+	 */
+	public void setActiveRendering(boolean active)
+	{
+		// An arena drawn by a RenderScheduler always draws straight to its panel, whatever the mode.
+		if (window != null)
+			window.setIgnoreRepaint(active);
+		this.setIgnoreRepaint(active);
+		this.activeRendering = active;
+		changes.signal();
+	}
+
+	/**
+	 * Switches the drawing of each frame between one thread, and tiles drawn in parallel on a
+	 * fork-join pool. Drawing in parallel pays off for large arenas and many shapes, where
+	 * drawing a frame keeps a whole core busy; for small frames the cost of splitting them up
+	 * outweighs it. Either way, the frames drawn are the same.
+	 *
+	 * @param parallel true to draw in parallel tiles, false to draw on one thread.
+	 */
+	public void setParallelRendering(boolean parallel)
+	{
+		this.parallelRendering = parallel;
+	}
+
+	/**
+	 * Determines if this GameArena is drawing its frames in parallel tiles.
+	 * @return true if frames are drawn in parallel tiles, false if on one thread.
+	 */
+	public boolean isParallelRendering()
+	{
+		return parallelRendering;
+	}
+
+	/**
+	 * Determines if this GameArena is drawing its frames actively.
+	 * @return true if frames are rendered actively, false if they are left to Swing.
+	 */
+	public boolean isActiveRendering()
+	{
+		return activeRendering;
+	}
+
+	/**
+	 * Gets the pacer that sets the frame rate of active rendering, and measures the frame rate
+	 * and jitter achieved.
+	 *
+	 * @return the frame pacer of this GameArena.
+	 */
+	public FramePacer getFramePacer()
+	{
+		return pacer;
+	}
+
+	/**
+	 * Draws a frame straight onto this panel, for the RenderScheduler drawing this GameArena.
+	 * The panel shares its window with others, so can't have a BufferStrategy of its own.
+	 */
+	void renderScheduled()
+	{
+		if (!this.isShowing())
+			return;
+
+		Graphics g = this.getGraphics();
+		if (g == null)
+			return;
+
+		try
+		{
+			this.paint(g);
+		}
+		finally
+		{
+			g.dispose();
+		}
+
+		Toolkit.getDefaultToolkit().sync();
+	}
+
+	/**
+	 * Draws a frame straight to the window through a BufferStrategy, drawing it again if the
+	 * strategy's buffers are lost or restored part way through.
+	 */
+	private void renderActive()
+	{
+		if (!window.isDisplayable())
+			return;
+
+		if (strategy == null)
+		{
+			window.createBufferStrategy(2);
+			strategy = window.getBufferStrategy();
+		}
+
+		do
+		{
+			do
+			{
+				Graphics g = strategy.getDrawGraphics();
+				try
+				{
+					// The strategy covers the whole window, so move to where this panel sits inside it.
+					Point origin = SwingUtilities.convertPoint(this, 0, 0, window);
+					g.translate(origin.x, origin.y);
+					this.paint(g);
+				}
+				finally
+				{
+					g.dispose();
+				}
+			}
+			while (strategy.contentsRestored());
+
+			strategy.show();
+		}
+		while (strategy.contentsLost());
+
+		Toolkit.getDefaultToolkit().sync();
+	}
+
 	/**
 	 * Update the size of the GameArena.
 	 *
@@ -87,9 +552,56 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 
 		this.canvasWidth = width+this.getInsets().left+this.getInsets().right;
 		this.canvasHeight = height+this.getInsets().top+this.getInsets().bottom;
-		window.setSize(canvasWidth, canvasHeight);
+		if (window != null)
+			window.setSize(canvasWidth, canvasHeight);
+		else
+			this.setPreferredSize(new Dimension(canvasWidth, canvasHeight));
+
+		this.queue(Command.RESIZE, null, 0);
 	}	
 
+	/**
+	 * Marks a shape as static, or no longer static. Static shapes are drawn once into a cached
+	 * image that is drawn beneath every other shape, whatever their layers, so they should only
+	 * be shapes that sit under everything else and never change, such as the background of a game.
+	 *
+	 * @param shape the shape to mark.
+	 * @param isStatic true to draw the shape into the cached image, false to draw it every frame.
+	 */
+	public void setStatic(Drawable shape, boolean isStatic)
+	{
+		this.queue(isStatic ? Command.SET_STATIC : Command.CLEAR_STATIC, shape, 0);
+	}
+
+	/**
+	 * Marks every shape on a layer as static, or no longer static. See setStatic().
+	 *
+	 * @param layer the layer to mark.
+	 * @param isStatic true to draw the shapes on the layer into the cached image, false to draw them every frame.
+	 */
+	public void setLayerStatic(int layer, boolean isStatic)
+	{
+		this.queue(isStatic ? Command.SET_LAYER_STATIC : Command.CLEAR_LAYER_STATIC, null, layer);
+	}
+
+	/**
+	 * Has the static shapes drawn again on the next frame. Call this after changing a static shape.
+	 */
+	public void invalidateStatic()
+	{
+		this.queue(Command.INVALIDATE_STATIC, null, 0);
+	}
+
+	/**
+	 * Gets the timings kept for the frames drawn by this GameArena.
+	 *
+	 * @return the frame timings of this GameArena.
+	 */
+	public FrameStats getFrameStats()
+	{
+		return frameStats;
+	}
+
 	/**
 	 * Close this GameArena window.
 	 * 
@@ -97,6 +609,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	public void exit()
 	{
 		this.exiting = true;
+		changes.signal();
 	}
 
 	/**
@@ -107,183 +620,471 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 		if (this.getCanvasWidth() <= 0 || this.getCanvasHeight() <=0)
 			return;
 
-		BufferedImage i = new BufferedImage(this.getCanvasWidth(), this.getCanvasHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = i.createGraphics();
-		
-		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		// Only the scheduler draws new frames of a scheduled arena, so the game sees frames start on
+		// one thread at a time. Swing repainting it, as when its window is uncovered, just shows the
+		// last frame again, and has the scheduler draw a new one.
+		if (scheduler != null && !RenderScheduler.isRenderThread())
+		{
+			this.showLastFrame(gr);
+			return;
+		}
 
-		synchronized (this)
+		// Paints can overlap, such as Swing repainting during an actively rendered frame, so the
+		// listeners are told under paintLock too, and never see two frames start at once.
+		synchronized (paintLock)
 		{
-			if (!this.exiting)
+			frameStats.frameStarted();
+
+			// The listeners are copied on change, so the array read here is never changed under it.
+			FrameListener[] listeners = frameListeners;
+			for (int i = 0; i < listeners.length; i++)
+				listeners[i].frameStarted();
+
+			this.applyCommands();
+
+			// Draw again if the contents of a volatile buffer are lost before they reach the screen.
+			boolean lost;
+			do
 			{
-				g.clearRect(0,0,this.getCanvasWidth(), this.getCanvasHeight());
+				Graphics2D g = this.prepareBuffer();
 
-				for (Object o : things)
+				if (!this.exiting)
 				{
-					if (o instanceof Circle)
-					{
-						Circle b = (Circle) o;
-						g.setColor(this.getColourFromString(b.getColour()));
-						g.fillOval((int)(b.getXPosition()-b.getSize()/2), (int)(b.getYPosition()-b.getSize()/2), (int)b.getSize(), (int)b.getSize());
-					}
-
-					if (o instanceof Rectangle)
-					{
-						Rectangle r = (Rectangle) o;
-						g.setColor(this.getColourFromString(r.getColour()));
-						g.fillRect((int)r.getXPosition(), (int)r.getYPosition(), (int)r.getWidth(), (int)r.getHeight());
-					}
-
-					if (o instanceof Line)
-					{
-						Line l = (Line) o;
-						g.setColor(this.getColourFromString(l.getColour()));
-						g.setStroke(new BasicStroke((float)l.getWidth()));
-
-                		g.draw(new Line2D.Float((float)l.getXStart(), (float)l.getYStart(), (float)l.getXEnd(), (float)l.getYEnd()));
-					}
-
-					if (o instanceof Text)
-					{
-						Text t = (Text) o;
-						g.setFont(new Font("SansSerif", Font.BOLD, t.getSize()));
-						g.setColor(this.getColourFromString(t.getColour()));
-						g.drawString(t.getText(),(float)t.getXPosition(), (float)t.getYPosition());
-					}
+					this.drawThings(g);
 				}
 
+				gr.drawImage(volatileBuffer != null ? volatileBuffer : imageBuffer, this.getInsets().left, this.getInsets().top, this);
+
+				lost = volatileBuffer != null && volatileBuffer.contentsLost();
+				if (lost)
+					fullRepaint = true;
 			}
+			while (lost);
 
-			gr.drawImage(i, this.getInsets().left, this.getInsets().top, this);
 			try{ Thread.sleep(0); } catch (Exception e) {} 
+
+			frameStats.frameEnded();
 		}
 	}
 
-	//
-	// Shouldn't really handle colour this way, but the student's haven't been introduced
-	// to constants properly yet, hmmm....
-	// 
-	private Color getColourFromString(String col)
+	/**
+	 * Copies the last frame drawn onto the screen again, and asks for a new one.
+	 *
+	 * @param gr the graphics to draw the frame with.
+	 */
+	private void showLastFrame(Graphics gr)
 	{
-		Color colour = Color.WHITE;
-		col = col.toUpperCase();
-
-		if (col.equals("BLACK"))
-			colour = Color.BLACK;	
+		synchronized (paintLock)
+		{
+			if (volatileBuffer != null || imageBuffer != null)
+				gr.drawImage(volatileBuffer != null ? volatileBuffer : imageBuffer, this.getInsets().left, this.getInsets().top, this);
+		}
 
-		if (col.equals("BLUE"))
-			colour = Color.BLUE;	
+		this.requestFrame();
+	}
 
-		if (col.equals("CYAN"))
-			colour = Color.CYAN;	
+	/**
+	 * Makes sure the back buffer exists at the size of the canvas and still holds its surface,
+	 * creating it again if it was released or can no longer be used.
+	 *
+	 * @return the graphics to draw the next frame with.
+	 */
+	private Graphics2D prepareBuffer()
+	{
+		if (volatileBuffer != null)
+		{
+			int status = volatileBuffer.validate(this.getGraphicsConfiguration());
 
-		if (col.equals("DARKGREY"))
-			colour = Color.DARK_GRAY;	
+			if (status == VolatileImage.IMAGE_INCOMPATIBLE)
+				this.releaseBuffer();
 
-		if (col.equals("GREY"))
-			colour = Color.GRAY;	
+			else if (status == VolatileImage.IMAGE_RESTORED)
+			{
+				if (bufferGraphics != null)
+					bufferGraphics.dispose();
 
-		if (col.equals("GREEN"))
-			colour = Color.GREEN;	
+				bufferGraphics = null;
+				fullRepaint = true;
+			}
+		}
 
-		if (col.equals("LIGHTGREY"))
-			colour = Color.LIGHT_GRAY;	
-				
-		if (col.equals("MAGENTA"))
-			colour = Color.MAGENTA;	
+		if (volatileBuffer == null && imageBuffer == null)
+		{
+			volatileBuffer = this.createVolatileImage(this.getCanvasWidth(), this.getCanvasHeight());
 
-		if (col.equals("ORANGE"))
-			colour = Color.ORANGE;	
+			// There is no volatile image for a panel that isn't on screen yet.
+			if (volatileBuffer == null)
+				imageBuffer = new BufferedImage(this.getCanvasWidth(), this.getCanvasHeight(), BufferedImage.TYPE_INT_RGB);
 
-		if (col.equals("PINK"))
-			colour = Color.PINK;	
+			fullRepaint = true;
+		}
 
-		if (col.equals("RED"))
-			colour = Color.RED;	
-		
-		if (col.equals("WHITE"))
-			colour = Color.WHITE;	
+		if (bufferGraphics == null)
+		{
+			bufferGraphics = volatileBuffer != null ? volatileBuffer.createGraphics() : imageBuffer.createGraphics();
+			bufferGraphics.setBackground(Color.BLACK);
+			bufferGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		}
 
-		if (col.equals("YELLOW"))
-			colour = Color.YELLOW;	
+		return bufferGraphics;
+	}
 
-		if (col.equals("BROWN"))
-			colour = new Color(109, 39, 5);	
+	/**
+	 * Throws away the back buffer, so it is created again at the current size for the next frame.
+	 */
+	private void releaseBuffer()
+	{
+		if (bufferGraphics != null)
+			bufferGraphics.dispose();
 
-		if (col.equals("DARKGREEN"))
-			colour = new Color(0, 100, 0);
-                
-                if (col.equals("LIGHTBLACK"))
-			colour = new Color(40, 40, 40);
+		if (volatileBuffer != null)
+			volatileBuffer.flush();
 
-		return colour;
+		bufferGraphics = null;
+		volatileBuffer = null;
+		imageBuffer = null;
 	}
-	
+
 	/**
-	 * Adds a given Object to the drawlist, maintaing z buffering order. 
+	 * Brings the back buffer up to date with the drawlist. Only the area covered by shapes that
+	 * have changed, been added or been removed since the last frame is drawn again: the static
+	 * shapes are copied into it from their cached image, and the dynamic shapes that overlap it
+	 * are drawn over them.
 	 *
-	 * @param o the object to add to the drawlist.
+	 * @param g the graphics to draw the frame with.
 	 */
-	private void addThing(Object o, int layer)
+	private void drawThings(Graphics2D g)
 	{
-		boolean added = false;
+		if (staticDirty)
+		{
+			this.drawStatic();
+			fullRepaint = true;
+		}
+
+		if (fullRepaint)
+		{
+			drawn.clear();
+			this.addDirty(0, 0, this.getCanvasWidth(), this.getCanvasHeight());
+		}
 
-		synchronized (this)
+		for (DrawList.Node n = things.first(); n != null; n = n.next)
 		{
-			if (things.size() > 100000)
+			if (!this.isStatic(n.thing))
+				this.trackChanges(g, n.thing);
+		}
+
+		if (dirtyX0 < dirtyX1 && dirtyY0 < dirtyY1 && parallelRendering && this.splitTiles() > 1)
+		{
+			this.drawTiles(g);
+			frameStats.recordDirty((long) (dirtyX1 - dirtyX0) * (dirtyY1 - dirtyY0));
+		}
+		else if (dirtyX0 < dirtyX1 && dirtyY0 < dirtyY1)
+		{
+			g.setClip(dirtyX0, dirtyY0, dirtyX1 - dirtyX0, dirtyY1 - dirtyY0);
+			g.drawImage(staticImage, 0, 0, null);
+
+			for (DrawList.Node n = things.first(); n != null; n = n.next)
 			{
-				System.out.println("\n\n");
-				System.out.println(" ********************************************************* ");
-				System.out.println(" ***** Only 100000 Objects Supported per Game Arena! ***** ");
-				System.out.println(" ********************************************************* ");
-				System.out.println("\n");
-				System.out.println("-- Joe\n\n");
-
-				window.dispatchEvent(new WindowEvent(window, WindowEvent.WINDOW_CLOSING));
+				if (!this.isStatic(n.thing) && this.isDirty(drawn.get(n.thing)))
+					n.thing.draw(g);
 			}
-			else
+
+			g.setClip(null);
+			frameStats.recordDirty((long) (dirtyX1 - dirtyX0) * (dirtyY1 - dirtyY0));
+		}
+
+		dirtyX0 = dirtyY0 = Integer.MAX_VALUE;
+		dirtyX1 = dirtyY1 = Integer.MIN_VALUE;
+		fullRepaint = false;
+	}
+
+	/**
+	 * Splits the dirty area into tiles along a grid of TILE_SIZE squares.
+	 *
+	 * @return the number of tiles the dirty area covers.
+	 */
+	private int splitTiles()
+	{
+		int columns = (this.getCanvasWidth() + TILE_SIZE - 1) / TILE_SIZE;
+		int rows = (this.getCanvasHeight() + TILE_SIZE - 1) / TILE_SIZE;
+		if (tileImages.length != columns * rows)
+			tileImages = new BufferedImage[columns * rows];
+
+		int c0 = dirtyX0 / TILE_SIZE;
+		int c1 = (dirtyX1 - 1) / TILE_SIZE;
+		int r0 = dirtyY0 / TILE_SIZE;
+		int r1 = (dirtyY1 - 1) / TILE_SIZE;
+		if (tiles.length < (c1 - c0 + 1) * (r1 - r0 + 1) * 5)
+			tiles = new int[(c1 - c0 + 1) * (r1 - r0 + 1) * 5];
+
+		tileCount = 0;
+		for (int r = r0; r <= r1; r++)
+		{
+			for (int c = c0; c <= c1; c++)
 			{
-				// Try to insert this object into the list.
-				for (int i=0; i<things.size(); i++)
-				{
-					int l = 0;
-					Object obj = things.get(i);
+				int x = Math.max(dirtyX0, c * TILE_SIZE);
+				int y = Math.max(dirtyY0, r * TILE_SIZE);
+				int t = tileCount * 5;
+				tiles[t] = x;
+				tiles[t + 1] = y;
+				tiles[t + 2] = Math.min(dirtyX1, (c + 1) * TILE_SIZE) - x;
+				tiles[t + 3] = Math.min(dirtyY1, (r + 1) * TILE_SIZE) - y;
+				tiles[t + 4] = r * columns + c;
+				tileCount++;
+			}
+		}
 
-					if (obj instanceof Circle)
-						l = ((Circle)obj).getLayer();
+		return tileCount;
+	}
 
-					if (obj instanceof Rectangle)
-						l = ((Rectangle)obj).getLayer();
+	/**
+	 * Draws the tiles of the dirty area in parallel, each into its own image, then copies them
+	 * into the frame. The shapes to draw are gathered first, in drawing order, so each tile
+	 * draws the shapes that overlap it in the same order they would be drawn on one thread.
+	 *
+	 * @param g the graphics to draw the frame with.
+	 */
+	private void drawTiles(Graphics2D g)
+	{
+		tileShapes.clear();
+		tileAreas.clear();
+		for (DrawList.Node n = things.first(); n != null; n = n.next)
+		{
+			Drawn d = this.isStatic(n.thing) ? null : drawn.get(n.thing);
+			if (this.isDirty(d))
+			{
+				tileShapes.add(n.thing);
+				tileAreas.add(d);
+			}
+		}
 
-					if (obj instanceof Line)
-						l = ((Line)obj).getLayer();
+		ForkJoinPool.commonPool().invoke(new TileTask(0, tileCount));
 
-					if (layer <= l)
-					{
-						things.add(i,o);
-						added = true;
-						break;
-					}
-				}
+		for (int i = 0; i < tileCount; i++)
+		{
+			int t = i * 5;
+			int x = tiles[t], y = tiles[t + 1], w = tiles[t + 2], h = tiles[t + 3];
+			g.drawImage(tileImages[tiles[t + 4]], x, y, x + w, y + h, 0, 0, w, h, null);
+		}
+	}
 
-				// If there are no items in the list with an equivalent or higher layer, append this object to the end of the list.
-				if (!added)
-					things.add(o);
+	/**
+	 * Draws one tile of the dirty area into its image: the static shapes, then the dynamic
+	 * shapes that overlap it. Tiles never share an image, so any number can be drawn at once.
+	 *
+	 * @param i the index of the tile.
+	 */
+	private void drawTile(int i)
+	{
+		int t = i * 5;
+		int x = tiles[t], y = tiles[t + 1], w = tiles[t + 2], h = tiles[t + 3];
+
+		BufferedImage image = tileImages[tiles[t + 4]];
+		if (image == null)
+		{
+			image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+			tileImages[tiles[t + 4]] = image;
+		}
+
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.translate(-x, -y);
+		g.setClip(x, y, w, h);
+		g.drawImage(staticImage, 0, 0, null);
+
+		for (int k = 0; k < tileShapes.size(); k++)
+		{
+			Drawn d = tileAreas.get(k);
+			if (d.x0 < x + w && d.x1 > x && d.y0 < y + h && d.y1 > y)
+				tileShapes.get(k).draw(g);
+		}
+
+		g.dispose();
+	}
+
+	/**
+	 * Draws a range of tiles, splitting it in half until each half is a single tile.
+	 */
+	private class TileTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		TileTask(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute()
+		{
+			if (to - from == 1)
+			{
+				drawTile(from);
+				return;
 			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new TileTask(from, middle), new TileTask(middle, to));
+		}
+	}
+
+	/**
+	 * Compares a dynamic shape with how it was last drawn, adding its old and new areas to the
+	 * dirty area if it has moved or changed, or its new area if it has not been drawn before.
+	 *
+	 * @param g the graphics the frame is drawn with, used to measure text.
+	 * @param o the shape to check.
+	 */
+	private void trackChanges(Graphics2D g, Drawable o)
+	{
+		Drawn d = drawn.get(o);
+		int revision = o.getRevision();
+
+		this.measure(g, o, measured);
+
+		if (d == null)
+		{
+			d = new Drawn();
+			drawn.put(o, d);
+		}
+		else
+		{
+			if (d.revision == revision && d.x == measured.x && d.y == measured.y && d.width == measured.width && d.height == measured.height)
+				return;
+
+			this.addDirty(d.x0, d.y0, d.x1, d.y1);
 		}
+
+		d.x0 = measured.x0;
+		d.y0 = measured.y0;
+		d.x1 = measured.x1;
+		d.y1 = measured.y1;
+		d.x = measured.x;
+		d.y = measured.y;
+		d.width = measured.width;
+		d.height = measured.height;
+		d.revision = revision;
+		this.addDirty(d.x0, d.y0, d.x1, d.y1);
+	}
+
+	/**
+	 * Works out the area of the frame a shape covers when drawn, both exactly and in whole pixels
+	 * with a pixel to spare for antialiasing.
+	 *
+	 * @param g the graphics the frame is drawn with, used to measure text.
+	 * @param o the shape to measure.
+	 * @param into where to put the area.
+	 */
+	private void measure(Graphics2D g, Drawable o, Drawn into)
+	{
+		o.getBounds(g, bounds);
+		into.x = bounds.x;
+		into.y = bounds.y;
+		into.width = bounds.width;
+		into.height = bounds.height;
+		into.x0 = (int) Math.floor(bounds.x) - 1;
+		into.y0 = (int) Math.floor(bounds.y) - 1;
+		into.x1 = (int) Math.ceil(bounds.x + bounds.width) + 2;
+		into.y1 = (int) Math.ceil(bounds.y + bounds.height) + 2;
 	}
 
 	/**
-	 * Remove an object from the drawlist. 
+	 * Grows the dirty area to cover a given area, kept within the canvas.
 	 *
-	 * @param o the object to remove from the drawlist.
+	 * @param x0 the left edge of the area.
+	 * @param y0 the top edge of the area.
+	 * @param x1 the right edge of the area.
+	 * @param y1 the bottom edge of the area.
+	 */
+	private void addDirty(int x0, int y0, int x1, int y1)
+	{
+		dirtyX0 = Math.max(0, Math.min(dirtyX0, x0));
+		dirtyY0 = Math.max(0, Math.min(dirtyY0, y0));
+		dirtyX1 = Math.min(this.getCanvasWidth(), Math.max(dirtyX1, x1));
+		dirtyY1 = Math.min(this.getCanvasHeight(), Math.max(dirtyY1, y1));
+	}
+
+	/**
+	 * Determines if the area a shape was drawn in overlaps the dirty area.
+	 *
+	 * @param d the area the shape was drawn in.
+	 * @return true if the shape needs drawing again.
+	 */
+	private boolean isDirty(Drawn d)
+	{
+		return d != null && d.x0 < dirtyX1 && d.x1 > dirtyX0 && d.y0 < dirtyY1 && d.y1 > dirtyY0;
+	}
+
+	/**
+	 * Draws the cleared background and the static shapes in the drawlist into the cached static
+	 * image, creating it if needed. The image is opaque, so it can be copied straight over a frame.
 	 */
-	private void removeObject(Object o)
+	private void drawStatic()
 	{
-		synchronized (this)
+		if (staticImage == null)
 		{
-			things.remove(o);
+			GraphicsConfiguration gc = this.getGraphicsConfiguration();
+			if (gc != null)
+				staticImage = gc.createCompatibleImage(this.getCanvasWidth(), this.getCanvasHeight(), Transparency.OPAQUE);
+			else
+				staticImage = new BufferedImage(this.getCanvasWidth(), this.getCanvasHeight(), BufferedImage.TYPE_INT_RGB);
 		}
+
+		Graphics2D g = staticImage.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setBackground(Color.BLACK);
+		g.clearRect(0, 0, staticImage.getWidth(), staticImage.getHeight());
+
+		for (DrawList.Node n = things.first(); n != null; n = n.next)
+		{
+			if (this.isStatic(n.thing))
+				n.thing.draw(g);
+		}
+
+		g.dispose();
+		staticDirty = false;
+	}
+
+	/**
+	 * Determines if a shape in the drawlist is drawn into the cached static image.
+	 *
+	 * @param o the shape to check.
+	 * @return true if the shape or its layer has been marked static.
+	 */
+	private boolean isStatic(Drawable o)
+	{
+		return staticThings.contains(o) || (!staticLayers.isEmpty() && staticLayers.contains(o.getLayer()));
+	}
+
+	/**
+	 * Adds a given shape to the GameArena, maintaing z buffering order. 
+	 * Once a shape is added, it will automatically appear on the window. 
+	 * Adding a shape that is already in the GameArena has no effect.
+	 * The shape is added as the next frame starts, so this never waits for a frame being drawn.
+	 *
+	 * @param o the shape to add to the GameArena.
+	 */
+	public void addDrawable(Drawable o)
+	{
+		if (o instanceof Tracked)
+			((Tracked) o).setChanges(changes);
+
+		this.queue(Command.ADD, o, 0);
+	}
+
+	/**
+	 * Remove a shape from the GameArena. 
+	 * Once a shape is removed, it will no longer appear on the window. 
+	 * The shape is removed as the next frame starts, so this never waits for a frame being drawn.
+	 *
+	 * @param o the shape to remove from the GameArena.
+	 */
+	public void removeDrawable(Drawable o)
+	{
+		this.queue(Command.REMOVE, o, 0);
 	}
 
 	/**
@@ -294,7 +1095,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	 */
 	public void addBall(Circle b)
 	{
-		this.addThing(b, b.getLayer());
+		this.addDrawable(b);
 	}
 
 	/**
@@ -305,7 +1106,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	 */
 	public void addRectangle(Rectangle r)
 	{
-		this.addThing(r, r.getLayer());
+		this.addDrawable(r);
 	}
 
 	/**
@@ -316,7 +1117,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	 */
 	public void addLine(Line l)
 	{
-		this.addThing(l, l.getLayer());
+		this.addDrawable(l);
 	}
 
 	/**
@@ -327,7 +1128,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	 */
 	public void addText(Text t)
 	{
-		this.addThing(t, t.getLayer());
+		this.addDrawable(t);
 	}
 
 	/**
@@ -338,7 +1139,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	 */
 	public void removeRectangle(Rectangle r)
 	{
-		this.removeObject(r);
+		this.removeDrawable(r);
 	}
 
 	/**
@@ -349,7 +1150,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	 */
 	public void removeBall(Circle b)
 	{
-		this.removeObject(b);
+		this.removeDrawable(b);
 	}
 
 	/**
@@ -360,7 +1161,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	 */
 	public void removeLine(Line l)
 	{
-		this.removeObject(l);
+		this.removeDrawable(l);
 	}
 
 	/**
@@ -371,7 +1172,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	 */
 	public void removeText(Text t)
 	{
-		this.removeObject(t);
+		this.removeDrawable(t);
 	}
 
 	/**
@@ -389,6 +1190,8 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	{
 		int code = e.getKeyCode();
 
+		changes.signal();
+
 		if (code == KeyEvent.VK_UP)
 			up = true;		
 		if (code == KeyEvent.VK_DOWN)
@@ -407,6 +1210,8 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	{
 		int code = e.getKeyCode();
 
+		changes.signal();
+
 		if (code == KeyEvent.VK_UP)
 			up = false;		
 		if (code == KeyEvent.VK_DOWN)
@@ -427,6 +1232,12 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 
 	public void mousePressed(MouseEvent e) 
 	{
+		changes.signal();
+
+		// Clicking an arena sharing its window with others gives it the keys, and focuses it.
+		if (scheduler != null)
+			this.requestFocusInWindow();
+
 		if (e.getButton() == MouseEvent.BUTTON1)
 			this.leftMouse = true;
 
@@ -436,6 +1247,8 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 
 	public void mouseReleased(MouseEvent e) 
 	{
+		changes.signal();
+
 		if (e.getButton() == MouseEvent.BUTTON1)
 			this.leftMouse = false;
 
@@ -459,6 +1272,7 @@ public class GameArena extends JPanel implements Runnable, KeyListener, MouseLis
 	{
 		mouseX = e.getX();	
 		mouseY = e.getY();	
+		changes.signal();
 	}
 
 	public void mouseDragged(MouseEvent e) 
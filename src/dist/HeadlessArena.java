@@ -0,0 +1,109 @@
+package dist;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+
+/**
+ * An Arena with no display. Shapes added to it are never drawn and mouse
+ * listeners are never called, so a game can be built and played on a machine
+ * with no screen, or with java.awt.headless set, without the cost of setting
+ * up Swing.
+ */
+public class HeadlessArena implements Arena
+{
+	private int arenaWidth;
+	private int arenaHeight;
+
+	/**
+	 * Create a headless arena of the given size.
+	 *
+	 * @param width The width of the arena
+	 * @param height The height of the arena
+	 */
+	public HeadlessArena(int width, int height)
+	{
+		this.arenaWidth = width;
+		this.arenaHeight = height;
+	}
+
+	public int getArenaWidth()
+	{
+		return arenaWidth;
+	}
+
+	public int getArenaHeight()
+	{
+		return arenaHeight;
+	}
+
+	public void addBall(Circle b)
+	{
+	}
+
+	public void addRectangle(Rectangle r)
+	{
+	}
+
+	public void addLine(Line l)
+	{
+	}
+
+	public void addText(Text t)
+	{
+	}
+
+	public void addDrawable(Drawable d)
+	{
+	}
+
+	public void removeBall(Circle b)
+	{
+	}
+
+	public void removeRectangle(Rectangle r)
+	{
+	}
+
+	public void removeLine(Line l)
+	{
+	}
+
+	public void removeText(Text t)
+	{
+	}
+
+	public void removeDrawable(Drawable d)
+	{
+	}
+
+	public void setStatic(Drawable shape, boolean isStatic)
+	{
+	}
+
+	public void setLayerStatic(int layer, boolean isStatic)
+	{
+	}
+
+	public void requestFrame()
+	{
+	}
+
+	public void addFrameListener(FrameListener l)
+	{
+	}
+
+	public void removeFrameListener(FrameListener l)
+	{
+	}
+
+	public void addMouseListener(MouseListener l)
+	{
+	}
+
+	public void addMouseMotionListener(MouseMotionListener l)
+	{
+	}
+
+	public void removeMouseMotionListener(MouseMotionListener l)
+	{
+	}
+}
@@ -1,10 +1,16 @@
 package dist;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+
 /**
  * Models a simple line. 
  * This class represents a Line object. When combined with the GameArena class,
  * instances of the Line class can be displayed on the screen.
  */
-public class Line 
+public class Line implements Drawable, Tracked
 {
 	// The following instance variables define the
 	// information needed to represent a line.
@@ -17,7 +23,11 @@ public class Line
 	private double yEnd;			// The Y coordinate of the end of this line
 	private double width;			// The thickness of the line
 	private int layer;				// The layer this line is drawn on
+	private int revision;			// The number of changes made to this line, so a GameArena can tell it has changed.
+	private volatile Changes changes;	// The changes of the arena showing this Line, told each time it changes.
 	private String colour = "WHITE";	// The colour of this line
+	private Color drawColour;			// The colour of this line, as looked up in the Colours palette
+	private BasicStroke stroke;			// The stroke this line is drawn with
 
 										// Permissable colours are:
 										// BLACK, BLUE, CYAN, DARKGREY, GREY,
@@ -74,6 +84,8 @@ public class Line
 		this.xEnd = x2;
 		this.yStart = y1;
 		this.yEnd = y2;
+		this.revision++;
+		this.signal();
 	}
 
 
@@ -104,6 +116,60 @@ public class Line
 		return layer;
 	}
 
+	/**
+	 * Obtains the revision of this Line, which goes up each time it is changed.
+	 * @return the number of changes made to this Line.
+	 */
+	public int getRevision()
+	{
+		return revision;
+	}
+
+	/**
+	 * Sets the count of changes this Line counts its changes on. Called by GameArena as the
+	 * Line is added.
+	 * @param changes the count of the arena showing this Line.
+	 */
+	public void setChanges(Changes changes)
+	{
+		this.changes = changes;
+	}
+
+	//
+	// Counts a change on the arena showing this Line, if any, so it draws it again.
+	//
+	private void signal()
+	{
+		Changes c = changes;
+		if (c != null)
+			c.signal();
+	}
+
+	/**
+	 * Works out the area this Line covers when drawn. Lines are drawn with square caps, which
+	 * reach out past the ends by up to half the width along a diagonal.
+	 * @param g the graphics the Line will be drawn with.
+	 * @param bounds where to put the area covered.
+	 */
+	public void getBounds(Graphics2D g, Rectangle2D.Double bounds)
+	{
+		double reach = width * 0.75;
+		double x0 = Math.min(xStart, xEnd) - reach;
+		double y0 = Math.min(yStart, yEnd) - reach;
+		bounds.setRect(x0, y0, Math.max(xStart, xEnd) + reach - x0, Math.max(yStart, yEnd) + reach - y0);
+	}
+
+	/**
+	 * Draws this Line.
+	 * @param g the graphics to draw the Line with.
+	 */
+	public void draw(Graphics2D g)
+	{
+		g.setColor(drawColour);
+		g.setStroke(stroke);
+		g.draw(new Line2D.Float((float)xStart, (float)yStart, (float)xEnd, (float)yEnd));
+	}
+
 
 	public Line(double x1, double y1, double x2, double y2, double thickness, String col, int lay)
 	{
@@ -114,6 +180,8 @@ public class Line
 
 		width = thickness;
 		colour = col;
+		drawColour = Colours.fromString(col);
+		stroke = new BasicStroke((float)thickness);
 		layer = lay;
 	}	
 
@@ -126,6 +194,8 @@ public class Line
 
 		width = thickness;
 		colour = col;
+		drawColour = Colours.fromString(col);
+		stroke = new BasicStroke((float)thickness);
 		layer = 0;
 	}	
         
@@ -133,5 +203,7 @@ public class Line
         public void setEnd(double x, double y){
             this.xEnd = x;
             this.yEnd = y;
+            this.revision++;
+            this.signal();
         }
 }
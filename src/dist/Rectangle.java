@@ -1,10 +1,14 @@
 package dist;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+
 /**
  * Models a simple, solid rectangle. 
  * This class represents a Rectabgle object. When combined with the GameArena class,
  * instances of the Rectangle class can be displayed on the screen.
  */
-public class Rectangle 
+public class Rectangle implements Drawable, Tracked
 {
 	// The following instance variables define the
 	// information needed to represent a Rectangle
@@ -18,7 +22,10 @@ public class Rectangle
 	private double width;				// The width of this Rectangle
 	private double height;				// The height of this Rectangle
 	private int layer;
+	private int revision;				// The number of changes made to this Rectangle, so a GameArena can tell it has changed.
+	private volatile Changes changes;	// The changes of the arena showing this Rectangle, told each time it changes.
 	private String colour = "WHITE";	// The colour of this Rectangle
+	private Color drawColour;			// The colour of this Rectangle, as looked up in the Colours palette
 
 										// Permissable colours are:
 										// BLACK, BLUE, CYAN, DARKGREY, GREY,
@@ -54,6 +61,8 @@ public class Rectangle
 	{
 		this.xBegin = x;
                 this.xEnd = x + this.width;
+		this.revision++;
+		this.signal();
 	}
 
 	/**
@@ -64,6 +73,8 @@ public class Rectangle
 	{
 		this.yBegin = y;
                 this.yEnd = y + this.height;
+		this.revision++;
+		this.signal();
 	}
     /**
     * Gets the end x coordinate of the Rectangle.
@@ -103,6 +114,8 @@ public class Rectangle
 	public void setHeight(double h)
 	{
 		this.height = h;	
+		this.revision++;
+		this.signal();
 	}
 
 
@@ -124,6 +137,55 @@ public class Rectangle
 		return layer;
 	}
 
+	/**
+	 * Obtains the revision of this Rectangle, which goes up each time it is changed.
+	 * @return the number of changes made to this Rectangle.
+	 */
+	public int getRevision()
+	{
+		return revision;
+	}
+
+	/**
+	 * Sets the count of changes this Rectangle counts its changes on. Called by GameArena as the
+	 * Rectangle is added.
+	 * @param changes the count of the arena showing this Rectangle.
+	 */
+	public void setChanges(Changes changes)
+	{
+		this.changes = changes;
+	}
+
+	//
+	// Counts a change on the arena showing this Rectangle, if any, so it draws it again.
+	//
+	private void signal()
+	{
+		Changes c = changes;
+		if (c != null)
+			c.signal();
+	}
+
+	/**
+	 * Works out the area this Rectangle covers when drawn.
+	 * @param g the graphics the Rectangle will be drawn with.
+	 * @param bounds where to put the area covered.
+	 */
+	public void getBounds(Graphics2D g, Rectangle2D.Double bounds)
+	{
+		bounds.setRect(this.getXPosition(), this.getYPosition(), this.getWidth(), this.getHeight());
+	}
+
+	/**
+	 * Draws this Rectangle.
+	 * @param g the graphics to draw the Rectangle with.
+	 */
+	public void draw(Graphics2D g)
+	{
+		g.setColor(drawColour);
+		g.fillRect((int)this.getXPosition(), (int)this.getYPosition(), (int)this.getWidth(), (int)this.getHeight());
+	}
+
 
     /** 
      * Create a rectangle of the given size, position and colour
@@ -143,6 +205,7 @@ public class Rectangle
 		width = w;
 		height = h;
 		colour = col;
+		drawColour = Colours.fromString(col);
 		layer = 0;
 	}	
 
@@ -165,6 +228,7 @@ public class Rectangle
 		width = w;
 		height = h;
 		colour = col;
+		drawColour = Colours.fromString(col);
 		layer = lay;
 	}	
 }
@@ -0,0 +1,330 @@
+package dist;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Draws the frames of any number of GameArenas from a fixed number of threads, rather than each
+ * arena running a thread of its own. The focused arena is drawn at a full frame rate, and a
+ * thread is kept free for it; every other arena is drawn at a lower background rate, with
+ * whatever threads are left. Arenas that aren't showing aren't drawn at all, and, as with a
+ * GameArena's own thread, no arena is drawn while nothing it shows has changed.
+ *
+ * Arenas are added to a scheduler by creating them with it, and have no window of their own;
+ * an ArenaGrid shows several in one window.
+ */
+public class RenderScheduler
+{
+	private static final long SECOND = 1000000000L;
+	private static final long IDLE_NANOS = 250000000L;	// How often an arena is drawn while nothing changes, in case of a change that wasn't counted.
+	private static final long POLL_NANOS = 1000000L;	// How soon to look again for a thread to draw an arena waiting on one.
+
+	private final int threads;
+	private final ExecutorService pool;
+	private final Thread dispatcher;
+	private final CopyOnWriteArrayList<Slot> slots = new CopyOnWriteArrayList<Slot>();
+	private final AtomicInteger drawing = new AtomicInteger();	// The number of frames being drawn.
+	private final Changes changes = new Changes();				// Told of every change to every arena, and to the scheduler itself.
+
+	private volatile GameArena focused;
+	private volatile long focusedPeriod = SECOND / 100;		// The time between frames of the focused arena, in nanoseconds.
+	private volatile long backgroundPeriod = SECOND / 20;	// The time between frames of every other arena, in nanoseconds.
+	private volatile boolean stopped = false;
+
+	/**
+	 * An arena drawn by this scheduler, and when it was last drawn. Only the dispatcher
+	 * reads and writes these, other than busy, which is cleared by the thread drawing it.
+	 */
+	private class Slot implements Runnable
+	{
+		final GameArena arena;
+		long seen = -1;										// The count of the arena's changes when it was last drawn.
+		long last = System.nanoTime() - IDLE_NANOS;			// When the arena was last drawn.
+		boolean idle = false;								// Whether the arena has been passed over since it was last drawn, having nothing new to draw.
+		volatile boolean busy = false;						// Whether a frame of the arena is being drawn.
+
+		Slot(GameArena arena)
+		{
+			this.arena = arena;
+		}
+
+		public void run()
+		{
+			try
+			{
+				arena.renderScheduled();
+			}
+			finally
+			{
+				busy = false;
+				drawing.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * A thread of a scheduler's pool, so a GameArena can tell a frame drawn by its scheduler from
+	 * Swing repainting it.
+	 */
+	private static class RenderThread extends Thread
+	{
+		RenderThread(Runnable r, String name)
+		{
+			super(r, name);
+		}
+	}
+
+	/**
+	 * Create a scheduler drawing frames from a given number of threads.
+	 *
+	 * @param threads the number of frames that may be drawn at once.
+	 */
+	public RenderScheduler(int threads)
+	{
+		if (threads <= 0)
+			throw new IllegalArgumentException("Thread count must be positive: " + threads);
+
+		this.threads = threads;
+		this.pool = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			private int count = 0;
+
+			public synchronized Thread newThread(Runnable r)
+			{
+				return new RenderThread(r, "RenderScheduler-" + (count++));
+			}
+		});
+
+		this.dispatcher = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					dispatch();
+				}
+				catch (InterruptedException iex) {}
+			}
+		}, "RenderScheduler");
+		dispatcher.start();
+	}
+
+	/**
+	 * Starts drawing an arena. Called by GameArena as it is created.
+	 *
+	 * @param arena the arena to draw.
+	 */
+	void add(GameArena arena)
+	{
+		slots.add(new Slot(arena));
+		changes.signal();
+	}
+
+	/**
+	 * Stops drawing an arena. A frame of it already being drawn is finished.
+	 *
+	 * @param arena the arena to stop drawing.
+	 */
+	public void remove(GameArena arena)
+	{
+		for (Slot s : slots)
+		{
+			if (s.arena == arena)
+				slots.remove(s);
+		}
+
+		if (focused == arena)
+			focused = null;
+	}
+
+	/**
+	 * Sets the arena drawn at the focused frame rate, and offered a thread before any other.
+	 * Arenas set this themselves when they gain the keyboard focus.
+	 *
+	 * @param arena the arena to focus, or null to draw every arena at the background rate.
+	 */
+	public void setFocused(GameArena arena)
+	{
+		this.focused = arena;
+		changes.signal();
+	}
+
+	/**
+	 * Gets the arena drawn at the focused frame rate.
+	 * @return the focused arena, or null if there is none.
+	 */
+	public GameArena getFocused()
+	{
+		return focused;
+	}
+
+	/**
+	 * Sets the most frames drawn each second of the focused arena.
+	 * @param framesPerSecond the frame rate of the focused arena.
+	 */
+	public void setFocusedFrameRate(int framesPerSecond)
+	{
+		this.focusedPeriod = this.periodOf(framesPerSecond);
+		changes.signal();
+	}
+
+	/**
+	 * Gets the most frames drawn each second of the focused arena.
+	 * @return the frame rate of the focused arena.
+	 */
+	public int getFocusedFrameRate()
+	{
+		return (int) (SECOND / focusedPeriod);
+	}
+
+	/**
+	 * Sets the most frames drawn each second of every arena other than the focused one.
+	 * @param framesPerSecond the frame rate of background arenas.
+	 */
+	public void setBackgroundFrameRate(int framesPerSecond)
+	{
+		this.backgroundPeriod = this.periodOf(framesPerSecond);
+		changes.signal();
+	}
+
+	/**
+	 * Gets the most frames drawn each second of every arena other than the focused one.
+	 * @return the frame rate of background arenas.
+	 */
+	public int getBackgroundFrameRate()
+	{
+		return (int) (SECOND / backgroundPeriod);
+	}
+
+	/**
+	 * Stops drawing every arena, and lets the scheduler's threads end once any frames being
+	 * drawn are finished.
+	 */
+	public void shutdown()
+	{
+		stopped = true;
+		dispatcher.interrupt();
+		pool.shutdown();
+	}
+
+	/**
+	 * Gets the count every arena drawn by this scheduler passes its changes on to.
+	 * @return the changes of every arena.
+	 */
+	Changes getChanges()
+	{
+		return changes;
+	}
+
+	/**
+	 * Determines if the current thread is one a scheduler draws frames on.
+	 * @return true if called while a scheduler is drawing a frame.
+	 */
+	static boolean isRenderThread()
+	{
+		return Thread.currentThread() instanceof RenderThread;
+	}
+
+	/**
+	 * Works out the time between frames at a given frame rate.
+	 *
+	 * @param framesPerSecond the number of frames each second.
+	 * @return the time between frames, in nanoseconds.
+	 */
+	private long periodOf(int framesPerSecond)
+	{
+		if (framesPerSecond <= 0)
+			throw new IllegalArgumentException("Frame rate must be positive: " + framesPerSecond);
+
+		return SECOND / framesPerSecond;
+	}
+
+	/**
+	 * Hands out frames to the pool as arenas become due, then waits for the next change or the
+	 * next arena to become due, whichever comes first.
+	 *
+	 * @throws InterruptedException if the scheduler is shut down while waiting.
+	 */
+	private void dispatch() throws InterruptedException
+	{
+		while (!stopped)
+		{
+			// The count is read before any arena's, so a change made while looking at them isn't missed.
+			long woken = changes.count();
+			long now = System.nanoTime();
+			long wake = now + IDLE_NANOS;
+
+			// The focused arena goes first, and the background is kept off one of the threads if
+			// there are several, so the focused arena never waits for a thread.
+			GameArena f = focused;
+			int backgroundThreads = f != null && threads > 1 ? threads - 1 : threads;
+			for (Slot s : slots)
+			{
+				if (s.arena == f)
+					wake = Math.min(wake, this.offer(s, now, focusedPeriod, threads));
+			}
+
+			for (Slot s : slots)
+			{
+				if (s.arena != f)
+					wake = Math.min(wake, this.offer(s, now, backgroundPeriod, backgroundThreads));
+			}
+
+			long millis = Math.max(1, (wake - System.nanoTime() + 999999) / 1000000);
+			changes.await(woken, millis);
+		}
+	}
+
+	/**
+	 * Hands a frame of an arena to the pool, if it has something to draw, is due a frame, and
+	 * a thread is free to draw it.
+	 *
+	 * @param s the arena to offer a frame.
+	 * @param now the time now.
+	 * @param period the time between frames of the arena.
+	 * @param limit the most frames that may be being drawn for the arena to be drawn too.
+	 * @return when the arena next needs looking at.
+	 */
+	private long offer(Slot s, long now, long period, int limit)
+	{
+		if (!s.arena.isShowing())
+		{
+			// Nothing is drawn, but the queued changes to its drawlist are made so they don't build up.
+			if (!s.busy)
+				s.arena.drainCommands();
+
+			return now + IDLE_NANOS;
+		}
+
+		long changes = s.arena.getChanges().count();
+		if (s.seen == changes && now - s.last < IDLE_NANOS)
+		{
+			s.idle = true;
+			return s.last + IDLE_NANOS;
+		}
+
+		long due = s.last + period;
+		if (s.busy || now < due)
+			return Math.max(due, now + POLL_NANOS);
+
+		if (drawing.get() >= limit)
+			return now + POLL_NANOS;
+
+		// Count the frames the arena could have been drawn in while it had nothing new to draw,
+		// as a GameArena drawing itself does while it waits for a change.
+		if (s.idle)
+		{
+			s.arena.getFrameStats().recordSkipped(Math.max(0, (now - s.last) / period - 1));
+			s.idle = false;
+		}
+
+		s.seen = changes;
+		s.last = now;
+		s.busy = true;
+		drawing.incrementAndGet();
+		pool.execute(s);
+		return now + period;
+	}
+}
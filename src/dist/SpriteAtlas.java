@@ -0,0 +1,171 @@
+package dist;
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Antialiased circles, drawn once into images and copied onto each frame from then on, as
+ * copying an image is much cheaper than filling an antialiased oval. A circle is drawn for each
+ * colour and diameter at a few offsets within a pixel, so moving circles still glide rather than
+ * jumping a whole pixel at a time. Diameters are rounded to the same fraction of a pixel as the
+ * offsets, and the atlas holds at most MAX_SETS sets of images, so circles of many different
+ * sizes can't fill memory. The atlas is shared by every GameArena and may be used from any thread.
+ */
+class SpriteAtlas
+{
+	static final int SUBPIXEL_STEPS = 4;		// The offsets within a pixel a circle is drawn at, along each axis.
+	static final double MAX_DIAMETER = 128;		// Circles bigger than this are filled directly, as their images would cost more than they save.
+	static final int MAX_SETS = 64;				// The most colours and diameters held at once, after which the atlas starts again.
+
+	private static final SpriteAtlas shared = new SpriteAtlas();
+
+	private ConcurrentHashMap<Key, Sprites> atlas = new ConcurrentHashMap<Key, Sprites>();
+
+	private static final Function<Key, Sprites> DRAW = new Function<Key, Sprites>()
+	{
+		public Sprites apply(Key k)
+		{
+			return new Sprites(k.colour, (double) k.steps / SUBPIXEL_STEPS);
+		}
+	};
+
+	/**
+	 * The images of a circle of one colour and diameter, one for each offset within a pixel. The
+	 * images are all drawn as the sprites are created, so they can be read from any thread
+	 * without locking.
+	 */
+	static final class Sprites
+	{
+		private final double diameter;
+		private final BufferedImage[] images = new BufferedImage[SUBPIXEL_STEPS * SUBPIXEL_STEPS];
+
+		private Sprites(Color colour, double diameter)
+		{
+			this.diameter = diameter;
+
+			// A pixel of margin on each side, and a pixel for the offset, leaves room for the antialiased edge.
+			int size = (int) Math.ceil(diameter) + 3;
+			for (int sy = 0; sy < SUBPIXEL_STEPS; sy++)
+			{
+				for (int sx = 0; sx < SUBPIXEL_STEPS; sx++)
+				{
+					BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+					Graphics2D g = image.createGraphics();
+					g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+					g.setColor(colour);
+					g.fill(new Ellipse2D.Double(1 + (double) sx / SUBPIXEL_STEPS, 1 + (double) sy / SUBPIXEL_STEPS, diameter, diameter));
+					g.dispose();
+					images[sy * SUBPIXEL_STEPS + sx] = image;
+				}
+			}
+		}
+
+		/**
+		 * Draws the circle onto a frame.
+		 *
+		 * @param g the graphics to draw the circle with.
+		 * @param x the X coordinate of the centre of the circle.
+		 * @param y the Y coordinate of the centre of the circle.
+		 */
+		void draw(Graphics2D g, double x, double y)
+		{
+			double left = x - diameter/2;
+			double top = y - diameter/2;
+			int px = (int) Math.floor(left);
+			int py = (int) Math.floor(top);
+			int sx = (int) Math.round((left - px) * SUBPIXEL_STEPS);
+			int sy = (int) Math.round((top - py) * SUBPIXEL_STEPS);
+
+			// An offset that rounds up to a whole pixel is the first offset of the next pixel.
+			if (sx == SUBPIXEL_STEPS)
+			{
+				sx = 0;
+				px++;
+			}
+			if (sy == SUBPIXEL_STEPS)
+			{
+				sy = 0;
+				py++;
+			}
+
+			g.drawImage(images[sy * SUBPIXEL_STEPS + sx], px - 1, py - 1, null);
+		}
+	}
+
+	/**
+	 * The colour and diameter a set of sprites is drawn for, with the diameter in steps of a
+	 * fraction of a pixel.
+	 */
+	private static final class Key
+	{
+		private final Color colour;
+		private final int rgb;
+		private final int steps;
+
+		private Key(Color colour, int steps)
+		{
+			this.colour = colour;
+			this.rgb = colour.getRGB();
+			this.steps = steps;
+		}
+
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key))
+				return false;
+
+			Key k = (Key) o;
+			return rgb == k.rgb && steps == k.steps;
+		}
+
+		public int hashCode()
+		{
+			return 31 * rgb + steps;
+		}
+	}
+
+	/**
+	 * Gets the atlas shared by every GameArena.
+	 * @return the shared atlas.
+	 */
+	static SpriteAtlas getShared()
+	{
+		return shared;
+	}
+
+	/**
+	 * Gets the sprites for a circle of a given colour and diameter, drawing them if needed. The
+	 * diameter is rounded to the nearest offset within a pixel. Once the atlas holds MAX_SETS
+	 * sets it is emptied before adding another; circles already given sprites keep them.
+	 *
+	 * @param colour the colour of the circle.
+	 * @param diameter the diameter of the circle.
+	 * @return the sprites of the circle, or null if it is too big to be worth drawing as a sprite.
+	 */
+	Sprites getSprites(Color colour, double diameter)
+	{
+		if (!(diameter > 0 && diameter <= MAX_DIAMETER))
+			return null;
+
+		Key k = new Key(colour, (int) Math.max(1, Math.round(diameter * SUBPIXEL_STEPS)));
+		Sprites s = atlas.get(k);
+		if (s != null)
+			return s;
+
+		if (atlas.size() >= MAX_SETS)
+			atlas.clear();
+
+		return atlas.computeIfAbsent(k, DRAW);
+	}
+
+	/**
+	 * Gets the number of colours and diameters the atlas holds sprites for.
+	 * @return the number of sets of sprites.
+	 */
+	int size()
+	{
+		return atlas.size();
+	}
+}
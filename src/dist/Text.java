@@ -1,12 +1,21 @@
 package dist;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Models a simple piece of text. 
  * This class represents a Text object. When combined with the GameArena class,
  * instances of the Text class can be displayed on the screen to show display
  * an appropriate piece of text.
  */
-public class Text
+public class Text implements Drawable, Tracked
 {
+	private static final ConcurrentHashMap<Integer, Font> fonts = new ConcurrentHashMap<Integer, Font>();	// The font for each size of text, shared by all Text of that size.
+
 	// The following instance variables define the
 	// information needed to represent a line.
 	// Feel free to more instance variables if you think it will 
@@ -18,6 +27,15 @@ public class Text
 	private int layer;					// The layer this text is drawn on
 	private String text;				// The actual text to display
 	private String colour;				// The colour of this text
+	private Color drawColour;			// The colour of this text, as looked up in the Colours palette
+	private Font font;					// The font this text is drawn in
+	private int revision;				// The number of changes made to this text, so a GameArena can tell it has changed.
+	private volatile Changes changes;	// The changes of the arena showing this Text, told each time it changes.
+
+	private int measuredRevision = -1;	// The revision this text was last measured at, so it is only measured again once changed.
+	private int ascent;					// How far this text reaches above its Y coordinate, when last measured.
+	private int descent;				// How far this text reaches below its Y coordinate, when last measured.
+	private int width;					// How wide this text is, when last measured.
 
 
 										// Permissable colours are:
@@ -80,6 +98,66 @@ public class Text
 		return layer;
 	}
 
+	/**
+	 * Obtains the revision of this Text, which goes up each time it is changed.
+	 * @return the number of changes made to this Text.
+	 */
+	public int getRevision()
+	{
+		return revision;
+	}
+
+	/**
+	 * Sets the count of changes this Text counts its changes on. Called by GameArena as the
+	 * Text is added.
+	 * @param changes the count of the arena showing this Text.
+	 */
+	public void setChanges(Changes changes)
+	{
+		this.changes = changes;
+	}
+
+	//
+	// Counts a change on the arena showing this Text, if any, so it draws it again.
+	//
+	private void signal()
+	{
+		Changes c = changes;
+		if (c != null)
+			c.signal();
+	}
+
+	/**
+	 * Works out the area this Text covers when drawn. Text can't be moved, so it is only
+	 * measured again when it has been changed.
+	 * @param g the graphics the Text will be drawn with, used to measure it.
+	 * @param bounds where to put the area covered.
+	 */
+	public void getBounds(Graphics2D g, Rectangle2D.Double bounds)
+	{
+		if (measuredRevision != revision)
+		{
+			FontMetrics m = g.getFontMetrics(font);
+			ascent = m.getMaxAscent();
+			descent = m.getMaxDescent();
+			width = m.stringWidth(text);
+			measuredRevision = revision;
+		}
+
+		bounds.setRect(xPosition, yPosition - ascent, width, ascent + descent);
+	}
+
+	/**
+	 * Draws this Text.
+	 * @param g the graphics to draw the Text with.
+	 */
+	public void draw(Graphics2D g)
+	{
+		g.setFont(font);
+		g.setColor(drawColour);
+		g.drawString(text, (float)xPosition, (float)yPosition);
+	}
+
 	public Text(String t, int s, double x, double y, String col, int lay)
 	{
 		xPosition = x;
@@ -88,15 +166,39 @@ public class Text
 		text = t;
 		colour = col;
 		layer = lay;
+		drawColour = Colours.fromString(col);
+		font = fontFor(s);
 	}	
 
 	public void setText(String text)
 	{
 		this.text = text;
+		this.revision++;
+		this.signal();
 	}
 
 	public void setColour(String colour)
 	{
 		this.colour = colour;
+		this.drawColour = Colours.fromString(colour);
+		this.revision++;
+		this.signal();
+	}
+
+	//
+	// Text of the same size is drawn in the same font, so each size of font is only created once.
+	//
+	private static Font fontFor(int size)
+	{
+		Font f = fonts.get(size);
+		if (f == null)
+		{
+			f = new Font("SansSerif", Font.BOLD, size);
+			Font existing = fonts.putIfAbsent(size, f);
+			if (existing != null)
+				f = existing;
+		}
+
+		return f;
 	}
 }
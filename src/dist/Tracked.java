@@ -0,0 +1,14 @@
+package dist;
+
+/**
+ * A shape that tells the GameArena showing it each time it changes. The arena hands the shape
+ * its count of changes as the shape is added.
+ */
+interface Tracked
+{
+	/**
+	 * Sets the count of changes this shape counts its changes on.
+	 * @param changes the count of the arena showing this shape.
+	 */
+	public void setChanges(Changes changes);
+}
@@ -0,0 +1,156 @@
+package snookergame;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the playing area of a table, with cells the size of a
+ * ball's diameter. Each cell keeps a linked list of the ids of the balls whose
+ * centre lies in it, so two balls can only touch if they are in the same or
+ * adjacent cells. Balls are moved between cells as they move, and taken out of
+ * the grid when pocketed.
+ *
+ * @author DominicWild
+ */
+public class BallGrid {
+
+    private static final int NONE = -1;                //Marks an empty cell, the end of a list or a ball not in the grid.
+
+    private final double originX, originY;              //The upper left point of the area covered by the grid.
+    private final double cellSize;                      //The width and height of each cell.
+    private final int columns, rows;                    //The number of cells across and down the grid.
+    private final int[] head;                           //The first ball in each cell.
+    private final int[] next;                           //The ball after each ball in its cell.
+    private final int[] prev;                           //The ball before each ball in its cell.
+    private final int[] cellOf;                         //The cell each ball is currently in.
+
+    /**
+     * Creates an empty grid covering the bounds of a table.
+     *
+     * @param bounds The upper left and bottom right points of the table's
+     * bounds.
+     * @param cellSize The width and height of each cell, at least the diameter
+     * of a ball.
+     * @param capacity The number of balls the grid can hold.
+     */
+    public BallGrid(Point2D.Double[] bounds, double cellSize, int capacity) {
+        this.originX = bounds[0].x;
+        this.originY = bounds[0].y;
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil((bounds[1].x - bounds[0].x) / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil((bounds[1].y - bounds[0].y) / cellSize));
+        head = new int[columns * rows];
+        next = new int[capacity];
+        prev = new int[capacity];
+        cellOf = new int[capacity];
+        Arrays.fill(head, NONE);
+        Arrays.fill(cellOf, NONE);
+    }
+
+    /**
+     * Gets the column of the grid a given X coordinate falls in, clamped to
+     * the grid.
+     *
+     * @param x The X coordinate.
+     * @return The column containing that coordinate.
+     */
+    public int column(double x) {
+        int c = (int) ((x - originX) / cellSize);
+        return c < 0 ? 0 : (c >= columns ? columns - 1 : c);
+    }
+
+    /**
+     * Gets the row of the grid a given Y coordinate falls in, clamped to the
+     * grid.
+     *
+     * @param y The Y coordinate.
+     * @return The row containing that coordinate.
+     */
+    public int row(double y) {
+        int r = (int) ((y - originY) / cellSize);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+
+    /**
+     * Places a ball in the cell for its position, moving it out of its old
+     * cell if it has changed.
+     *
+     * @param id The id of the ball.
+     * @param x The X coordinate of the ball.
+     * @param y The Y coordinate of the ball.
+     */
+    public void update(int id, double x, double y) {
+        int cell = column(x) + row(y) * columns;
+        if (cell != cellOf[id]) {
+            remove(id);
+            next[id] = head[cell];
+            prev[id] = NONE;
+            if (head[cell] != NONE) {
+                prev[head[cell]] = id;
+            }
+            head[cell] = id;
+            cellOf[id] = cell;
+        }
+    }
+
+    /**
+     * Takes a ball out of the grid, if it is in it.
+     *
+     * @param id The id of the ball.
+     */
+    public void remove(int id) {
+        int cell = cellOf[id];
+        if (cell == NONE) {
+            return;
+        }
+        if (prev[id] != NONE) {
+            next[prev[id]] = next[id];
+        } else {
+            head[cell] = next[id];
+        }
+        if (next[id] != NONE) {
+            prev[next[id]] = prev[id];
+        }
+        cellOf[id] = NONE;
+    }
+
+    /**
+     * Gets the first ball in a cell.
+     *
+     * @param column The column of the cell.
+     * @param row The row of the cell.
+     * @return The id of the first ball in the cell, or -1 if it is empty.
+     */
+    public int first(int column, int row) {
+        return head[column + row * columns];
+    }
+
+    /**
+     * Gets the ball after a given ball in its cell.
+     *
+     * @param id The id of the ball.
+     * @return The id of the next ball in the same cell, or -1 if there are no
+     * more.
+     */
+    public int next(int id) {
+        return next[id];
+    }
+
+    /**
+     * Gets the number of columns in the grid.
+     *
+     * @return The number of columns in the grid.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the number of rows in the grid.
+     *
+     * @return The number of rows in the grid.
+     */
+    public int getRows() {
+        return rows;
+    }
+}
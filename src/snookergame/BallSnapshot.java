@@ -0,0 +1,123 @@
+package snookergame;
+
+/**
+ * The positions of every ball on a table as they stood at the end of one step
+ * of the physics, for the renderer to draw from. Once published by
+ * BallSnapshots a snapshot is not written to again until the renderer has
+ * moved on to a newer one, so a frame drawn from it shows whole steps only.
+ *
+ * @author DominicWild
+ */
+public class BallSnapshot {
+
+    final double[] x;                                   //The X coordinate of each ball.
+    final double[] y;                                   //The Y coordinate of each ball.
+    final boolean[] visible;                            //Whether each ball is on the table, rather than pocketed.
+    int size;                                           //The number of balls in the snapshot.
+    long nanos;                                         //When the snapshot was published, from System.nanoTime().
+    boolean stepped;                                    //Whether the snapshot ends a step of the physics, rather than balls being placed by hand.
+
+    /**
+     * Creates an empty snapshot able to hold a given number of balls.
+     *
+     * @param capacity The number of balls the snapshot can hold.
+     */
+    BallSnapshot(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        visible = new boolean[capacity];
+    }
+
+    /**
+     * Copies the positions of every ball out of a store.
+     *
+     * @param store The store to copy from.
+     */
+    void copy(BallStore store) {
+        size = store.size();
+        System.arraycopy(store.x, 0, x, 0, size);
+        System.arraycopy(store.y, 0, y, 0, size);
+        for (int i = 0; i < size; i++) {
+            visible[i] = store.state[i] != BallStore.POCKETED;
+        }
+    }
+
+    /**
+     * Copies another snapshot.
+     *
+     * @param s The snapshot to copy.
+     */
+    void copy(BallSnapshot s) {
+        size = s.size;
+        nanos = s.nanos;
+        stepped = s.stepped;
+        System.arraycopy(s.x, 0, x, 0, size);
+        System.arraycopy(s.y, 0, y, 0, size);
+        System.arraycopy(s.visible, 0, visible, 0, size);
+    }
+
+    /**
+     * Sets this snapshot to part of the way from one snapshot to another.
+     * Balls that have been pocketed or put back between the two are taken
+     * from the later one, rather than slid across the table.
+     *
+     * @param from The earlier snapshot.
+     * @param to The later snapshot.
+     * @param alpha How far from the earlier to the later snapshot, from 0 to
+     * 1.
+     */
+    void blend(BallSnapshot from, BallSnapshot to, double alpha) {
+        size = to.size;
+        nanos = to.nanos;
+        stepped = to.stepped;
+        for (int i = 0; i < size; i++) {
+            visible[i] = to.visible[i];
+            if (i < from.size && from.visible[i] == to.visible[i]) {
+                x[i] = from.x[i] + (to.x[i] - from.x[i]) * alpha;
+                y[i] = from.y[i] + (to.y[i] - from.y[i]) * alpha;
+            } else {
+                x[i] = to.x[i];
+                y[i] = to.y[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the number of balls in this snapshot.
+     *
+     * @return The number of balls.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the X coordinate of a ball in this snapshot.
+     *
+     * @param id The id of the ball.
+     * @return The X coordinate of the ball.
+     */
+    public double getX(int id) {
+        return x[id];
+    }
+
+    /**
+     * Gets the Y coordinate of a ball in this snapshot.
+     *
+     * @param id The id of the ball.
+     * @return The Y coordinate of the ball.
+     */
+    public double getY(int id) {
+        return y[id];
+    }
+
+    /**
+     * Gets whether a ball in this snapshot is on the table.
+     *
+     * @param id The id of the ball.
+     * @return True if the ball is on the table, false if it has been pocketed.
+     */
+    public boolean isVisible(int id) {
+        return visible[id];
+    }
+}
@@ -0,0 +1,135 @@
+package snookergame;
+
+import dist.Arena;
+import dist.FrameListener;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the positions of the balls from the physics to the renderer through
+ * three snapshots, without either side waiting on the other. The physics
+ * writes each step into a spare snapshot and swaps it in as the latest; at
+ * the start of each frame the renderer swaps the latest out, if it is newer
+ * than the one it holds, and draws the whole frame from it. As the renderer
+ * and the physics never hold the same snapshot, neither ever sees one being
+ * written, and a frame never shows half of a step.
+ *
+ * The renderer also keeps a copy of the snapshot it held before the latest,
+ * and draws the balls part of the way between the two, by how far the time
+ * of the frame is through the gap between them. Frames are then drawn a step
+ * behind the physics, but the balls move smoothly however the frame rate and
+ * the rate of the physics differ, so the physics can be stepped less often.
+ *
+ * @author DominicWild
+ */
+public class BallSnapshots implements FrameListener {
+
+    private static final int FRESH = 4;                 //Set alongside the index of the latest snapshot until the renderer takes it.
+
+    private final Arena arena;                          //The arena the snapshots are drawn in.
+    private final BallSnapshot[] snapshots = new BallSnapshot[3];
+    private final AtomicInteger latest = new AtomicInteger(1); //The index of the latest snapshot published, with FRESH if not yet taken.
+    private int back = 0;                               //The index of the snapshot the next step is written into.
+    private int front = 2;                              //The index of the snapshot the renderer holds.
+    private BallSnapshot previous;                      //The renderer's copy of the snapshot it held before the one it holds now.
+    private BallSnapshot blended;                       //The positions between previous and the held snapshot that the current frame is drawn at.
+    private volatile boolean interpolating = true;      //Whether balls are drawn between snapshots, rather than at the latest.
+    private volatile BallSnapshot drawing;              //The snapshot the frame being drawn is drawn from, or null before the first.
+
+    /**
+     * Creates the snapshots for balls drawn in a given arena.
+     *
+     * @param arena The arena the balls are drawn in, which is asked for
+     * further frames while the balls are drawn between snapshots.
+     */
+    public BallSnapshots(Arena arena) {
+        this.arena = arena;
+    }
+
+    /**
+     * Publishes the current positions of the balls in a store as the latest
+     * snapshot. Publishers take turns with each other, but never wait on the
+     * renderer.
+     *
+     * @param store The store holding the balls.
+     * @param stepped True if the positions are the end of a step of the
+     * physics, which are drawn moving smoothly from the last, or false if
+     * balls have been placed by hand and should be drawn where they are.
+     */
+    public synchronized void publish(BallStore store, boolean stepped) {
+        BallSnapshot s = snapshots[back];
+        if (s == null) {
+            s = new BallSnapshot(store.x.length);
+            snapshots[back] = s;
+        }
+        s.copy(store);
+        s.nanos = System.nanoTime();
+        s.stepped = stepped;
+        back = latest.getAndSet(back | FRESH) & ~FRESH;
+    }
+
+    /**
+     * Takes the latest snapshot for the frame about to be drawn, if a newer
+     * one has been published since the last frame, and works out where the
+     * balls are drawn in the frame.
+     */
+    @Override
+    public void frameStarted() {
+        if ((latest.get() & FRESH) != 0) {
+            BallSnapshot held = snapshots[front];
+            if (held != null) {
+                if (previous == null) {
+                    previous = new BallSnapshot(held.x.length);
+                    blended = new BallSnapshot(held.x.length);
+                }
+                previous.copy(held);
+            }
+            front = latest.getAndSet(front) & ~FRESH;
+        }
+
+        BallSnapshot current = snapshots[front];
+        if (current == null || previous == null || !current.stepped || !interpolating) {
+            drawing = current;
+            return;
+        }
+
+        long gap = current.nanos - previous.nanos;
+        double alpha = gap > 0 ? (double) (System.nanoTime() - current.nanos) / gap : 1;
+        if (alpha >= 1) {
+            drawing = current;
+            return;
+        }
+
+        blended.blend(previous, current, Math.max(0, alpha));
+        drawing = blended;
+        arena.requestFrame(); //The balls haven't reached the latest snapshot yet, so another frame is needed to carry on.
+    }
+
+    /**
+     * Gets the snapshot the frame being drawn is drawn from.
+     *
+     * @return The snapshot of the current frame, or null if none has been
+     * published yet.
+     */
+    public BallSnapshot getDrawing() {
+        return drawing;
+    }
+
+    /**
+     * Sets whether balls are drawn moving smoothly between snapshots, or
+     * jump straight to each latest one.
+     *
+     * @param i True to draw between snapshots.
+     */
+    public void setInterpolating(boolean i) {
+        this.interpolating = i;
+    }
+
+    /**
+     * Gets whether balls are drawn moving smoothly between snapshots.
+     *
+     * @return True if balls are drawn between snapshots.
+     */
+    public boolean isInterpolating() {
+        return interpolating;
+    }
+}
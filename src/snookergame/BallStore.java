@@ -0,0 +1,109 @@
+package snookergame;
+
+import snookergame.SnookerBall.State;
+
+/**
+ * Holds the state of every ball on a table in primitive arrays, indexed by the
+ * id of each ball. SnookerBall objects are views onto a slot of this store,
+ * so the physics loops can read positions and speeds straight from contiguous
+ * arrays rather than going through each ball object.
+ *
+ * @author DominicWild
+ */
+public class BallStore {
+
+    static final State[] STATES = State.values();       //The ball states, indexed by the ordinal stored for each ball.
+    static final byte MOVING = (byte) State.MOVING.ordinal();
+    static final byte POCKETED = (byte) State.POCKETED.ordinal();
+    static final byte STATIONARY = (byte) State.STATIONARY.ordinal();
+
+    final double[] x;                                   //The X coordinate of each ball.
+    final double[] y;                                   //The Y coordinate of each ball.
+    final double[] vx;                                  //The speed of each ball in the X axis.
+    final double[] vy;                                  //The speed of each ball in the Y axis.
+    final double[] radius;                              //The radius of each ball.
+    final double[] prevX;                               //The X coordinate of each ball before the current shot.
+    final double[] prevY;                               //The Y coordinate of each ball before the current shot.
+    final byte[] state;                                 //The ordinal of the State of each ball.
+    final int[] score;                                  //The score each ball is worth.
+    final SnookerBall[] balls;                          //The ball object viewing each slot.
+    private int count = 0;                              //The number of balls held in this store.
+
+    /**
+     * Creates an empty store able to hold a given number of balls.
+     *
+     * @param capacity The number of balls this store can hold.
+     */
+    public BallStore(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        radius = new double[capacity];
+        prevX = new double[capacity];
+        prevY = new double[capacity];
+        state = new byte[capacity];
+        score = new int[capacity];
+        balls = new SnookerBall[capacity];
+    }
+
+    /**
+     * Adds a ball to this store, at rest at a given position.
+     *
+     * @param b The ball object that views this slot.
+     * @param x The X coordinate of the ball.
+     * @param y The Y coordinate of the ball.
+     * @param r The radius of the ball.
+     * @param s The score the ball is worth.
+     * @return The id of the slot the ball has been given.
+     */
+    int add(SnookerBall b, double x, double y, double r, int s) {
+        int id = count++;
+        this.balls[id] = b;
+        this.x[id] = x;
+        this.y[id] = y;
+        this.radius[id] = r;
+        this.score[id] = s;
+        this.state[id] = STATIONARY;
+        return id;
+    }
+
+    /**
+     * Gets the number of balls held in this store.
+     *
+     * @return The number of balls held in this store.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the ball object for a given id.
+     *
+     * @param id The id of the ball.
+     * @return The ball viewing that slot of the store.
+     */
+    public SnookerBall getBall(int id) {
+        return balls[id];
+    }
+
+    /**
+     * Gets the state of a given ball.
+     *
+     * @param id The id of the ball.
+     * @return The state of that ball.
+     */
+    public State getState(int id) {
+        return STATES[state[id]];
+    }
+
+    /**
+     * Sets the state of a given ball.
+     *
+     * @param id The id of the ball.
+     * @param s The state to set the ball to.
+     */
+    public void setState(int id, State s) {
+        state[id] = (byte) s.ordinal();
+    }
+}
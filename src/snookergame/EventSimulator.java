@@ -0,0 +1,244 @@
+package snookergame;
+
+import java.util.PriorityQueue;
+
+/**
+ * Plays out a whole shot by jumping from one event to the next, rather than
+ * ticking the world. The next contact between each ball and the other balls,
+ * the cushions and the pockets, and the time each ball comes to rest, are
+ * predicted and kept in a priority queue. Time jumps straight to the earliest
+ * event, which is resolved, and only the predictions of the balls involved
+ * are thrown away and made again.
+ *
+ * Friction is applied in closed form on each whole tick, so a ball on its own
+ * moves as it would when ticked in SWEPT mode. Contacts are found in a
+ * different order and at slightly different times, though, and a pack of
+ * touching balls magnifies the difference, so a break can end with the balls
+ * far from where SWEPT mode leaves them. Shots played in this mode are
+ * plausible, not a replay of another mode.
+ *
+ * @author DominicWild
+ */
+public class EventSimulator {
+
+    private static final int MAX_EVENTS = 100000;       //The most events resolved in one shot, to stop wedged balls stalling the shot.
+    private static final int REST = 0, BALL = 1, CUSHION_X = 2, CUSHION_Y = 3, POCKET = 4;
+
+    private final PhysicsWorld world;                   //The world whose balls, cushions and pockets are simulated.
+    private final BallStore store;                      //The store holding the state of every ball.
+    private final double[] time;                        //The time the position and speed of each ball in the store are given at.
+    private final int[] count;                          //The number of events each ball has been in, used to spot out of date predictions.
+    private final PriorityQueue<Event> queue = new PriorityQueue<Event>();
+    private double now;                                 //The current time of the simulation, in ticks.
+    private int events;                                 //The number of events resolved in the last shot.
+
+    /**
+     * A predicted event, which is out of date if either ball involved has been
+     * in another event since it was predicted.
+     */
+    private static class Event implements Comparable<Event> {
+
+        final double time;
+        final int kind, a, b, countA, countB;
+
+        Event(double time, int kind, int a, int b, int countA, int countB) {
+            this.time = time;
+            this.kind = kind;
+            this.a = a;
+            this.b = b;
+            this.countA = countA;
+            this.countB = countB;
+        }
+
+        @Override
+        public int compareTo(Event e) {
+            return Double.compare(time, e.time);
+        }
+    }
+
+    /**
+     * Creates an event simulator for the balls of a physics world.
+     *
+     * @param w The world whose balls, cushions and pockets are simulated.
+     * @param s The store holding the state of every ball in the world.
+     */
+    public EventSimulator(PhysicsWorld w, BallStore s) {
+        this.world = w;
+        this.store = s;
+        this.time = new double[s.size()];
+        this.count = new int[s.size()];
+    }
+
+    /**
+     * Plays out the current shot until every ball is at rest or pocketed.
+     */
+    public void simulate() {
+        final int n = store.size();
+        queue.clear();
+        now = 0;
+        events = 0;
+        world.wakeMovers();
+        world.settle();
+        for (int i = 0; i < n; i++) {
+            time[i] = 0;
+        }
+        for (int k = 0; k < world.awakeCount; k++) {
+            predict(world.awake[k]);
+        }
+        while (!queue.isEmpty() && events < MAX_EVENTS) {
+            Event e = queue.poll();
+            if (count[e.a] != e.countA || (e.kind == BALL && count[e.b] != e.countB)) { //A ball has been in another event since.
+                continue;
+            }
+            now = e.time;
+            events++;
+            advance(e.a);
+            count[e.a]++;
+            switch (e.kind) {
+                case REST:
+                    stop(e.a);
+                    predict(e.a); //Balls heading for it now meet a ball that has stopped.
+                    break;
+                case BALL:
+                    advance(e.b);
+                    count[e.b]++;
+                    world.collide(e.a, e.b);
+                    predict(e.a);
+                    predict(e.b);
+                    break;
+                case CUSHION_X:
+                    world.bounceX(e.a);
+                    predict(e.a);
+                    break;
+                case CUSHION_Y:
+                    world.bounceY(e.a);
+                    predict(e.a);
+                    break;
+                case POCKET:
+                    world.pocket(e.a);
+                    break;
+            }
+        }
+        while (world.awakeCount > 0) { //Stop anything left moving if the shot was cut short.
+            final int i = world.awake[world.awakeCount - 1];
+            advance(i);
+            stop(i);
+        }
+    }
+
+    /**
+     * Gets the number of events resolved in the last shot.
+     *
+     * @return The number of events resolved in the last shot.
+     */
+    public int getEventCount() {
+        return events;
+    }
+
+    /**
+     * Predicts the next events for a ball: its contacts with the cushions,
+     * pockets and every other ball, and the time it comes to rest. A ball at
+     * rest can only be hit, so it is only checked against the moving balls.
+     *
+     * @param i The id of the ball.
+     */
+    private void predict(int i) {
+        final double[] x = store.x, y = store.y, vx = store.vx, vy = store.vy, r = store.radius;
+        boolean moving = store.state[i] == BallStore.MOVING;
+        double limit = Sweep.NEVER; //How far the ball can travel before it stops, per unit of speed.
+        if (moving) {
+            double rest = restTime(i);
+            limit = Friction.distance(now, rest);
+            queue.add(new Event(rest, REST, i, -1, count[i], 0));
+            double s = Sweep.wall(x[i], vx[i], world.minX + r[i], world.maxX - r[i]);
+            if (s <= limit) {
+                queue.add(new Event(Friction.timeAt(now, s), CUSHION_X, i, -1, count[i], 0));
+            }
+            s = Sweep.wall(y[i], vy[i], world.minY + r[i], world.maxY - r[i]);
+            if (s <= limit) {
+                queue.add(new Event(Friction.timeAt(now, s), CUSHION_Y, i, -1, count[i], 0));
+            }
+            for (int p = 0; p < world.pocketX.length; p++) {
+                s = Sweep.enter(x[i] - world.pocketX[p], y[i] - world.pocketY[p], vx[i], vy[i], world.pocketR[p]);
+                if (s <= limit) {
+                    queue.add(new Event(Friction.timeAt(now, s), POCKET, i, p, count[i], 0));
+                }
+            }
+        }
+        if (moving) {
+            for (int j = 0; j < store.size(); j++) {
+                predictContact(i, j, limit);
+            }
+        } else {
+            for (int k = 0; k < world.awakeCount; k++) {
+                predictContact(i, world.awake[k], limit);
+            }
+        }
+    }
+
+    /**
+     * Predicts the contact between a ball and another ball that has not been
+     * pocketed, if they meet before either stops.
+     *
+     * @param i The id of the ball the prediction is made for.
+     * @param j The id of the other ball.
+     * @param limit How far the first ball can travel before it stops, per unit
+     * of speed.
+     */
+    private void predictContact(int i, int j, double limit) {
+        final double[] x = store.x, y = store.y, vx = store.vx, vy = store.vy, r = store.radius;
+        final byte[] state = store.state;
+        if (j == i || state[j] == BallStore.POCKETED) {
+            return;
+        }
+        advance(j);
+        double reach = state[j] == BallStore.MOVING ? Math.min(limit, Friction.distance(now, restTime(j))) : limit;
+        double s = Sweep.circles(x[j] - x[i], y[j] - y[i], vx[j] - vx[i], vy[j] - vy[i], r[i] + r[j]);
+        if (s <= reach) {
+            queue.add(new Event(Friction.timeAt(now, s), BALL, i, j, count[i], count[j]));
+        }
+    }
+
+    /**
+     * Gets the time a moving ball comes to rest, once it has been brought up
+     * to the current time.
+     *
+     * @param i The id of the ball.
+     * @return The tick on which the ball stops.
+     */
+    private double restTime(int i) {
+        return Math.floor(now) + Math.max(1, Friction.ticksToRest(store.vx[i], store.vy[i]));
+    }
+
+    /**
+     * Brings the position and speed of a ball up to the current time.
+     *
+     * @param i The id of the ball.
+     */
+    private void advance(int i) {
+        if (time[i] == now) {
+            return;
+        }
+        if (store.state[i] == BallStore.MOVING) {
+            double s = Friction.distance(time[i], now), k = Friction.decay(time[i], now);
+            store.x[i] += store.vx[i] * s;
+            store.y[i] += store.vy[i] * s;
+            store.vx[i] *= k;
+            store.vy[i] *= k;
+        }
+        time[i] = now;
+    }
+
+    /**
+     * Brings a ball to rest where it is and puts it to sleep.
+     *
+     * @param i The id of the ball.
+     */
+    private void stop(int i) {
+        store.vx[i] = 0;
+        store.vy[i] = 0;
+        store.state[i] = BallStore.STATIONARY;
+        world.sleep(i);
+        world.placeInGrid(i);
+    }
+}
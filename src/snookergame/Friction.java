@@ -0,0 +1,116 @@
+package snookergame;
+
+/**
+ * Closed forms for how the balls slow down on the table. Each tick a ball
+ * keeps a fixed fraction of its speed, so over any stretch of time every
+ * moving ball covers the same multiple of its speed at the start of that
+ * stretch. These methods work out that multiple, and when a ball comes to
+ * rest, without playing the ticks out one at a time.
+ *
+ * Times are measured in ticks, with friction applied on each whole tick. A
+ * speed given at a time is the speed for the rest of the tick that time falls
+ * in.
+ *
+ * @author DominicWild
+ */
+final class Friction {
+
+    static final double KEEP = 1 - PhysicsWorld.FRICTION;    //The fraction of its speed a ball keeps through each tick.
+    private static final double LOG_KEEP = Math.log(KEEP);
+
+    private Friction() {
+    }
+
+    /**
+     * Gets how many ticks of friction bring a ball down to the rest speed.
+     *
+     * @param vx The speed of the ball in the X axis.
+     * @param vy The speed of the ball in the Y axis.
+     * @return The number of ticks of friction after which the ball is at rest,
+     * 0 if it is already slow enough to be at rest.
+     */
+    static int ticksToRest(double vx, double vy) {
+        double speed = Math.max(Math.abs(vx), Math.abs(vy));
+        if (speed <= PhysicsWorld.REST_SPEED) {
+            return 0;
+        }
+        int n = (int) Math.ceil(Math.log(PhysicsWorld.REST_SPEED / speed) / LOG_KEEP);
+        while (n > 0 && speed * Math.pow(KEEP, n - 1) <= PhysicsWorld.REST_SPEED) { //Correct for rounding in the logarithms.
+            n--;
+        }
+        while (speed * Math.pow(KEEP, n) > PhysicsWorld.REST_SPEED) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Gets how far a ball travels over a number of whole ticks, as a multiple
+     * of its speed in the first of them.
+     *
+     * @param ticks The number of ticks.
+     * @return The distance travelled per unit of starting speed.
+     */
+    static double travel(int ticks) {
+        return (1 - Math.pow(KEEP, ticks)) / PhysicsWorld.FRICTION;
+    }
+
+    /**
+     * Gets how far a ball travels between two times, as a multiple of its
+     * speed at the first.
+     *
+     * @param from The time the speed is given at.
+     * @param to The time to travel until.
+     * @return The distance travelled per unit of speed at the first time.
+     */
+    static double distance(double from, double to) {
+        double k0 = Math.floor(from), k1 = Math.floor(to);
+        if (k1 == k0) {
+            return to - from;
+        }
+        int n = (int) (k1 - k0); //The number of times friction is applied on the way.
+        return (k0 + 1 - from) + KEEP * travel(n - 1) + Math.pow(KEEP, n) * (to - k1);
+    }
+
+    /**
+     * Gets the time at which a ball has travelled a given multiple of its
+     * speed, the inverse of distance().
+     *
+     * @param from The time the speed is given at.
+     * @param s The distance travelled per unit of speed at that time.
+     * @return The time the distance is reached, or Sweep.NEVER if friction
+     * stops the ball short of it.
+     */
+    static double timeAt(double from, double s) {
+        double k0 = Math.floor(from);
+        double first = k0 + 1 - from; //What is left of the tick the speed is given in.
+        if (s <= first) {
+            return from + s;
+        }
+        double rest = s - first;
+        double q = 1 - rest * PhysicsWorld.FRICTION / KEEP;
+        if (q <= 0) {
+            return Sweep.NEVER;
+        }
+        int f = (int) Math.floor(Math.log(q) / LOG_KEEP); //The number of whole ticks after the first.
+        while (f > 0 && KEEP * travel(f) > rest) { //Correct for rounding in the logarithms.
+            f--;
+        }
+        while (KEEP * travel(f + 1) <= rest) {
+            f++;
+        }
+        double part = (rest - KEEP * travel(f)) / Math.pow(KEEP, f + 1);
+        return k0 + 1 + f + Math.min(part, 1);
+    }
+
+    /**
+     * Gets the fraction of its speed a ball keeps between two times.
+     *
+     * @param from The earlier time.
+     * @param to The later time.
+     * @return The fraction of speed kept.
+     */
+    static double decay(double from, double to) {
+        return Math.pow(KEEP, Math.floor(to) - Math.floor(from));
+    }
+}
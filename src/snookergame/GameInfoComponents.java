@@ -1,7 +1,7 @@
 
 package snookergame;
 
-import dist.GameArena;
+import dist.Arena;
 import dist.Text;
 
 /**
@@ -14,16 +14,16 @@ public class GameInfoComponents {
 
     private Text selectedCol;           //The current selected colour Text object. Used to display what the current selected colour is.
     private Text endGameMsg;            //The end game message to be displayed when the game ends.
-    private GameArena gameArena;        //The game Arena these components should be displayed on.
+    private Arena gameArena;            //The Arena these components should be displayed on.
     private Text speedMsg;              //The text showing the current speed the ball will be launched at.
 
     /**
-     * The constructor for a GameInfoComponents object, taking the GameArena it
-     * is associated to as an argument.
+     * The constructor for a GameInfoComponents object, taking the Arena it is
+     * associated to as an argument.
      *
-     * @param gA The GameArena this object is associated with.
+     * @param gA The Arena this object is associated with.
      */
-    public GameInfoComponents(GameArena gA) {
+    public GameInfoComponents(Arena gA) {
         this.gameArena = gA; //Assign passed Game Arena, among instansiate class objects.
         selectedCol = new Text("Selected Ball Colour: NONE", 20, gA.getArenaWidth() * 0.35, gA.getArenaHeight() * 0.1, "WHITE", 10);
         endGameMsg = new Text("The game has ended!", 30, gA.getArenaWidth() / 3.6, gA.getArenaHeight() * 0.9, "YELLOW", 10);
@@ -61,7 +61,7 @@ public class GameInfoComponents {
     }
 
     /**
-     * Displays the end game message on the GameArena assigned to this
+     * Displays the end game message on the Arena assigned to this
      * GameInfoComponents.
      */
     public void endGameMessage() {
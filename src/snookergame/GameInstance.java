@@ -11,17 +11,20 @@ import snookergame.SnookerBall.State;
 /**
  * The class responsible for the instance of the game. Handling the gathering of
  * data for effecting the state of the game and also handling the game logic and
- * flow.
+ * flow. Listens to the turns played out by the table's physics, noting the
+ * balls pocketed as they drop and applying the rules once all balls are at
+ * rest.
  *
  * @author DominicWild
  */
-public class GameInstance extends MouseInputAdapter implements Runnable {
+public class GameInstance extends MouseInputAdapter implements TurnListener {
 
     private SnookerTable table;                             //The table that the instance of the SnookerGame is taking place on.
     private int playerTurn = 0;                             //An index representing which of one of two players turns it is. 0 and 1 are values used.
     ArrayList<SnookerBall> rBalls = new ArrayList();        //The "round balls" representing balls that have been pocketed in the current shot.
     boolean selectColourTurn = false;                       //A boolean indicator of if a colour needs to be selected by a player.
     private String selectedColour = "NONE";                         //The selected colour currently.
+    private volatile boolean shotInPlay = false;           //Whether a shot has been taken and its balls are yet to come to rest.
     private String ballVals[] = {"RED", "YELLOW", "GREEN", "BROWN", "BLUE", "PINK", "LIGHTBLACK"};        //A list of balls in score order, index+1 is the score of each ball.
     public static final int  speedDivFactor = 6, maxXSpeed = 30, maxYSpeed = 30;
 
@@ -83,19 +86,71 @@ public class GameInstance extends MouseInputAdapter implements Runnable {
 
     @Override
     public void mouseReleased(MouseEvent e) {
-        if(!table.isABallMoving() && !selectColourTurn){
+        if(!shotInPlay && !selectColourTurn){
         double xSpeed=0 , ySpeed=0;
         
         xSpeed = (table.getWhiteBall().getXPosition() - e.getX()) / speedDivFactor;
         ySpeed = (table.getWhiteBall().getYPosition() - e.getY()) / speedDivFactor;
-         if(Math.abs(xSpeed) > GameInstance.maxXSpeed){
-            xSpeed = Math.signum(xSpeed)*GameInstance.maxXSpeed;
+        table.getWhiteBall().setSpeed(limitSpeed(xSpeed, maxXSpeed), limitSpeed(ySpeed, maxYSpeed));
+        this.movePhase(table);
         }
-        if(Math.abs(ySpeed) > GameInstance.maxYSpeed){
-            ySpeed = Math.signum(ySpeed)*GameInstance.maxYSpeed;
+    }
+
+    /**
+     * Plays a whole shot on the calling thread, from striking the white ball
+     * to applying the rules once every ball has stopped, which is done as the
+     * balls come to rest. Used to play the game without a display, where there
+     * is no mouse to take the shot. A shot can't be taken while another is
+     * still playing out, or while a colour is yet to be picked.
+     *
+     * @param xSpeed The speed to strike the white ball at in the X direction.
+     * @param ySpeed The speed to strike the white ball at in the Y direction.
+     * @throws IllegalStateException If a shot can't be taken yet.
+     */
+    public void playShot(double xSpeed, double ySpeed) {
+        if (shotInPlay || selectColourTurn) {
+            throw new IllegalStateException("A shot can't be taken until the last has finished and a colour is picked.");
         }
-        table.getWhiteBall().setSpeed(xSpeed, ySpeed);
-        this.movePhase(table);
+        table.getWhiteBall().setSpeed(limitSpeed(xSpeed, maxXSpeed), limitSpeed(ySpeed, maxYSpeed));
+        table.cueEnable(false);
+        shotInPlay = true;
+        table.getPhysics().simulate();
+    }
+
+    /**
+     * Limits a speed to a given maximum in either direction.
+     *
+     * @param speed The speed to limit.
+     * @param max The largest size the speed may have.
+     * @return The limited speed.
+     */
+    private double limitSpeed(double speed, double max) {
+        if (Math.abs(speed) > max) {
+            return Math.signum(speed) * max;
+        }
+        return speed;
+    }
+
+    /**
+     * Gets whether the current turn is one where the player must pick a
+     * colour before their shot.
+     *
+     * @return A boolean reflecting if a colour needs to be selected.
+     */
+    public boolean isSelectColourTurn() {
+        return selectColourTurn;
+    }
+
+    /**
+     * Picks the colour to aim for on a select colour turn, as if the ball at a
+     * given point was clicked.
+     *
+     * @param x The X coordinate of the ball to pick.
+     * @param y The Y coordinate of the ball to pick.
+     */
+    public void selectColour(double x, double y) {
+        if (selectColourTurn) {
+            selectColourTurn(x, y);
         }
     }
 
@@ -107,15 +162,46 @@ public class GameInstance extends MouseInputAdapter implements Runnable {
     
 
     @Override
-    public void run() {
-       playoutTurn();
+    public void shotStarted() {
+    }
+
+    @Override
+    public void firstContact(SnookerBall white, SnookerBall hit) {
+    }
+
+    /**
+     * Notes a ball pocketed in the current shot, for the rules to look at
+     * once the shot is over.
+     *
+     * @param b The ball pocketed.
+     */
+    @Override
+    public void ballPocketed(SnookerBall b) {
+        rBalls.add(b);
+    }
+
+    @Override
+    public void cushionHit(SnookerBall b) {
     }
+
+    /**
+     * Plays out the end of the turn once every ball has stopped, on the
+     * thread that played out the shot.
+     */
+    @Override
+    public void allAtRest() {
+        try {
+            playoutTurn();
+        } finally {
+            shotInPlay = false;
+        }
+    }
+
     /**
      * Plays out the end of the turn, checking all game logic and handling
      * placement of balls and etc., related to the game.
      */
     private void playoutTurn() {
-        do {/*Nothing*/} while (table.isABallMoving()); //Waits til all balls are not moving.
         /**
          * Checks conditions to determine how variables change for the next
          * turn. Assigning score, turn type, if balls are to be replaced, if the
@@ -344,18 +430,15 @@ public class GameInstance extends MouseInputAdapter implements Runnable {
         return rBalls.contains(table.getWhiteBall());
     }
     /**
-     * Initiates the move phase of this turn. Where all balls are responsive to movement.
+     * Initiates the move phase of this turn. Where all balls are responsive to
+     * movement. The end of the turn is played out once the physics reports
+     * all balls are at rest.
      * @param s The snooker table of which this move phase has began on.
      */
     public void movePhase(SnookerTable s) {
-        ArrayList<SnookerBall> allBalls = s.getAllBalls();
         this.table.cueEnable(false);
-        for (SnookerBall b : allBalls) { //Starts the threads of all the balls to begin moving in accordance with the set speed of the white ball.
-            Thread t = new Thread(b);
-            t.start();
-        }
-        Thread t = new Thread(this);
-        t.start(); //As balls are now moving, launches thread to wait for the end of the turn.
+        shotInPlay = true;
+        s.getPhysics().shoot(); //Hands the shot to the table's physics world, which moves all the balls on one thread.
     }
 
     /**
@@ -0,0 +1,102 @@
+package snookergame;
+
+/**
+ * Counts kept by a PhysicsWorld about how much work it does, so the cost of
+ * stepping can be watched as shots are played. Counts are reset at the start
+ * of each shot, and written only by the thread playing the shot out.
+ *
+ * @author DominicWild
+ */
+public class PhysicsMetrics {
+
+    private volatile int lastSubsteps;                  //The number of substeps the last tick was split into.
+    private volatile int maxSubsteps;                   //The most substeps any tick of the current shot was split into.
+    private volatile long totalSubsteps;                //The number of substeps taken in the current shot.
+    private volatile int ticks;                         //The number of ticks stepped in the current shot.
+    private volatile int skippedTicks;                  //The number of ticks skipped in closed form in the current shot.
+
+    /**
+     * Clears the counts, ready for a new shot.
+     */
+    void reset() {
+        lastSubsteps = 0;
+        maxSubsteps = 0;
+        totalSubsteps = 0;
+        ticks = 0;
+        skippedTicks = 0;
+    }
+
+    /**
+     * Records a tick that has been stepped.
+     *
+     * @param substeps The number of substeps the tick was split into, 1 if it
+     * was not split.
+     */
+    void recordTick(int substeps) {
+        lastSubsteps = substeps;
+        maxSubsteps = Math.max(maxSubsteps, substeps);
+        totalSubsteps += substeps;
+        ticks++;
+    }
+
+    /**
+     * Records ticks that were skipped in closed form rather than stepped.
+     *
+     * @param skipped The number of ticks skipped.
+     */
+    void recordSkipped(int skipped) {
+        skippedTicks += skipped;
+    }
+
+    /**
+     * Gets the number of substeps the last tick was split into.
+     *
+     * @return The number of substeps in the last tick.
+     */
+    public int getLastSubsteps() {
+        return lastSubsteps;
+    }
+
+    /**
+     * Gets the most substeps any tick of the current or last shot was split
+     * into.
+     *
+     * @return The most substeps in one tick of the shot.
+     */
+    public int getMaxSubsteps() {
+        return maxSubsteps;
+    }
+
+    /**
+     * Gets the number of substeps taken in the current or last shot.
+     *
+     * @return The number of substeps taken in the shot.
+     */
+    public long getTotalSubsteps() {
+        return totalSubsteps;
+    }
+
+    /**
+     * Gets the number of ticks stepped in the current or last shot.
+     *
+     * @return The number of ticks stepped in the shot.
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the number of ticks skipped in closed form in the current or last
+     * shot.
+     *
+     * @return The number of ticks skipped in the shot.
+     */
+    public int getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    @Override
+    public String toString() {
+        return "ticks=" + ticks + " skipped=" + skippedTicks + " substeps=" + totalSubsteps + " last=" + lastSubsteps + " max=" + maxSubsteps;
+    }
+}
@@ -0,0 +1,900 @@
+package snookergame;
+
+import dist.Circle;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+/**
+ * Steps every ball on a SnookerTable together, in a single loop at a fixed
+ * timestep, on a worker thread kept for the life of the table. How each tick
+ * is stepped is set by a Mode. Balls at rest or pocketed are asleep and left
+ * out of each tick until a moving ball runs into them, and only balls in
+ * nearby cells of a BallGrid are checked against each other, so the cost of a
+ * tick grows with the number of moving balls rather than the number on the
+ * table. Listeners are told of each event in a shot as it happens, and of the
+ * end of the shot once every ball is at rest.
+ *
+ * @author DominicWild
+ */
+public class PhysicsWorld implements Runnable {
+
+    public static final int TICK_MILLIS = 10;           //The length of one tick of the world, in milliseconds.
+    private static final int MAX_SUBSTEPS = 25;         //The most parts a tick is split into in SUBSTEP mode.
+    private static final double SUBSTEP_TRAVEL = 0.5;   //The furthest a ball may move in one substep, as a fraction of the smallest radius.
+    private static final int MAX_CONTACTS = 100;        //The most contacts resolved in one tick, to stop a wedged ball stalling the tick.
+    static final double REST_SPEED = 0.1;               //The speed in both axes below which a ball is considered not moving.
+    static final double FRICTION = 0.01;                //The fraction of speed lost to the table each tick.
+
+    private final SnookerTable table;                   //The table this world moves the balls of.
+    private final BallStore store;                      //The store holding the state of every ball on the table.
+    final double[] pocketX, pocketY, pocketR;           //The centre and capture radius of each pocket.
+    final double minX, minY, maxX, maxY;                //The inside edges of the cushions.
+    private final BallGrid grid;                        //The grid used to find the balls near each ball.
+    private final double smallestRadius;                //The radius of the smallest ball, which bounds how far a substep may move.
+    private final PhysicsMetrics metrics = new PhysicsMetrics();
+    private final EventSimulator events;                //The simulator shots are handed to in EVENT mode.
+    private final int[] checked;                        //The pass in which each ball last checked its neighbours for collisions.
+    final int[] awake;                                  //The ids of the moving balls, in the first awakeCount places.
+    private final int[] awakeSlot;                      //The place of each ball in awake, or -1 if it is asleep.
+    int awakeCount = 0;                                 //The number of moving balls.
+    private int pass = 0;                               //The current collision pass, bumped on each substep or contact search.
+    private Mode mode = Mode.SWEPT;                     //How each tick is stepped.
+    private volatile boolean realTime = true;           //Whether shots are played out at the speed of the wall clock.
+    private volatile int ticksPerWake = 1;              //The ticks stepped each time the worker wakes in real time.
+    private volatile boolean stepping = false;          //Whether a step or shot is being played out, so moves are published together at its end.
+    private double hitTime;                             //The time of the earliest contact found by findContact().
+    private int hitKind, hitA, hitB;                    //The kind of the earliest contact and the ball (and ball or pocket) involved.
+    private volatile TurnListener[] turnListeners = new TurnListener[0]; //The listeners told of each event in a shot, copied on change so events allocate nothing.
+    private final Object turnListenerLock = new Object(); //Held while the listeners are changed.
+    private boolean shotPending = false;                //Whether a shot has been taken that the worker is yet to play out.
+    private Thread worker;                              //The thread shots are played out on.
+
+    private static final int HIT_NONE = 0, HIT_BALL = 1, HIT_CUSHION_X = 2, HIT_CUSHION_Y = 3, HIT_POCKET = 4;
+
+    /**
+     * The ways a tick of the world can be stepped.
+     */
+    public enum Mode {
+
+        /**
+         * SUBSTEP - The tick is split into equal parts, as many as the fastest
+         * ball needs, with overlapping balls deflected after each part.
+         */
+        SUBSTEP,
+        /**
+         * SWEPT - Balls are moved straight to the earliest contact in the
+         * tick, which is resolved before moving on to the next.
+         */
+        SWEPT,
+        /**
+         * EVENT - Whole shots are played out at once by an EventSimulator,
+         * jumping from one event to the next with no ticks or waiting. Single
+         * steps are swept.
+         */
+        EVENT
+    }
+
+    /**
+     * Creates a physics world for the balls on a given table.
+     *
+     * @param t The table this world moves the balls of.
+     */
+    public PhysicsWorld(SnookerTable t) {
+        this.table = t;
+        this.store = t.getStore();
+        Circle[] pockets = t.getPockets();
+        pocketX = new double[pockets.length];
+        pocketY = new double[pockets.length];
+        pocketR = new double[pockets.length];
+        for (int i = 0; i < pockets.length; i++) {
+            pocketX[i] = pockets[i].getXPosition();
+            pocketY[i] = pockets[i].getYPosition();
+            pocketR[i] = pockets[i].getSize(); //A ball is in a pocket once its centre is within the pocket's diameter of the pocket's centre.
+        }
+        Point2D.Double[] bP = t.getBoundPoints();
+        minX = bP[0].x;
+        minY = bP[0].y;
+        maxX = bP[1].x;
+        maxY = bP[1].y;
+        double diameter = 0, smallest = Double.MAX_VALUE;
+        for (int i = 0; i < store.size(); i++) {
+            diameter = Math.max(diameter, 2 * store.radius[i]);
+            smallest = Math.min(smallest, store.radius[i]);
+        }
+        smallestRadius = smallest;
+        grid = new BallGrid(t.getBoundPoints(), diameter, store.size());
+        checked = new int[store.size()];
+        awake = new int[store.size()];
+        awakeSlot = new int[store.size()];
+        Arrays.fill(awakeSlot, -1);
+        events = new EventSimulator(this, store);
+        syncGrid();
+        publish(false);
+    }
+
+    /**
+     * Hands a shot to the worker thread, to be played out until every ball on
+     * the table has come to rest. The worker is started on the first shot,
+     * and again if it has since been interrupted and ended.
+     */
+    public synchronized void shoot() {
+        if (worker == null || !worker.isAlive()) {
+            worker = new Thread(this, "PhysicsWorld");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        shotPending = true;
+        notifyAll();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            synchronized (this) {
+                while (!shotPending) { //Wait until there is a shot to play out.
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+                shotPending = false;
+            }
+            try {
+                simulate();
+            } catch (RuntimeException ex) { //Report a failing turn listener, but keep the worker alive for the next shot.
+                Thread t = Thread.currentThread();
+                t.getUncaughtExceptionHandler().uncaughtException(t, ex);
+            }
+        }
+    }
+
+    /**
+     * Plays out the current shot on the calling thread, ticking the world
+     * until all balls are not moving. In real time each tick waits for the
+     * wall clock. Otherwise the shot is played out as fast as it can be, with
+     * stretches of ticks in which nothing touches skipped in closed form. Once
+     * every ball is at rest, the turn listeners are told on the same thread.
+     * If a listener throws part way through the shot, the balls are stopped
+     * where they are and the listeners are still told the shot is over, so
+     * none is left waiting for it, before the exception is thrown on.
+     */
+    public void simulate() {
+        RuntimeException failure = null;
+        stepping = true;
+        try {
+            for (TurnListener l : turnListeners) {
+                l.shotStarted();
+            }
+            play();
+        } catch (RuntimeException ex) {
+            failure = ex;
+            stopAll();
+        } finally {
+            stepping = false;
+            publish(true);
+        }
+        for (TurnListener l : turnListeners) { //Every listener is told, even if one before it throws.
+            try {
+                l.allAtRest();
+            } catch (RuntimeException ex) {
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Adds a listener to be told of each event in the shots played out in
+     * this world.
+     *
+     * @param l The listener to add.
+     */
+    public void addTurnListener(TurnListener l) {
+        synchronized (turnListenerLock) {
+            TurnListener[] listeners = Arrays.copyOf(turnListeners, turnListeners.length + 1);
+            listeners[listeners.length - 1] = l;
+            turnListeners = listeners;
+        }
+    }
+
+    /**
+     * Removes a listener told of each event in the shots played out in this
+     * world.
+     *
+     * @param l The listener to remove.
+     */
+    public void removeTurnListener(TurnListener l) {
+        synchronized (turnListenerLock) {
+            TurnListener[] listeners = turnListeners;
+            for (int i = 0; i < listeners.length; i++) {
+                if (listeners[i] == l) {
+                    TurnListener[] rest = Arrays.copyOf(listeners, listeners.length - 1);
+                    System.arraycopy(listeners, i + 1, rest, i, listeners.length - i - 1);
+                    turnListeners = rest;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Plays out the current shot, publishing each tick to the renderer as it
+     * is stepped. If the thread is interrupted while waiting for the wall
+     * clock, the shot is ended with the balls stopped where they are, and the
+     * thread is left interrupted.
+     */
+    private void play() {
+        syncGrid();
+        metrics.reset();
+        for (int i = 0; i < store.size(); i++) { //Record positions so foul balls can be replaced.
+            if (store.x[i] > 50 && store.y[i] > 50) {
+                store.prevX[i] = store.x[i];
+                store.prevY[i] = store.y[i];
+            }
+        }
+        if (mode == Mode.EVENT) {
+            events.simulate();
+            return;
+        }
+        wakeMovers();
+        while (awakeCount > 0) {
+            if (realTime) {
+                int n = ticksPerWake;
+                try {
+                    Thread.sleep(TICK_MILLIS * n);
+                } catch (InterruptedException ex) { //Keep the interrupt for the caller, and end the shot with the balls where they are.
+                    Thread.currentThread().interrupt();
+                    stopAll();
+                    return;
+                }
+                for (int k = 0; k < n && (k == 0 || awakeCount > 0); k++) { //Catch up on the ticks slept through, published together.
+                    this.tick();
+                }
+            } else {
+                fastForward();
+                this.tick();
+            }
+            publish(true);
+        }
+    }
+
+    /**
+     * Sets whether shots are played out at the speed of the wall clock, one
+     * tick every TICK_MILLIS, or as fast as possible for replays and playing
+     * without a display.
+     *
+     * @param r True to wait for the wall clock between ticks.
+     */
+    public void setRealTime(boolean r) {
+        this.realTime = r;
+    }
+
+    /**
+     * Gets whether shots are played out at the speed of the wall clock.
+     *
+     * @return True if ticks wait for the wall clock.
+     */
+    public boolean isRealTime() {
+        return realTime;
+    }
+
+    /**
+     * Sets how many ticks are stepped each time the worker wakes in real
+     * time. The worker sleeps for that many ticks at a time and steps them
+     * together, publishing only the last, so the shot plays out the same but
+     * the worker wakes less often. The renderer draws the balls moving
+     * smoothly between the steps it is given, so this costs no smoothness.
+     *
+     * @param n The number of ticks stepped at a time, at least 1.
+     */
+    public void setTicksPerWake(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Ticks per wake must be at least 1: " + n);
+        }
+        this.ticksPerWake = n;
+    }
+
+    /**
+     * Gets how many ticks are stepped each time the worker wakes in real
+     * time.
+     *
+     * @return The number of ticks stepped at a time.
+     */
+    public int getTicksPerWake() {
+        return ticksPerWake;
+    }
+
+    /**
+     * Skips the whole ticks before the next contact between a ball and another
+     * ball, a cushion or a pocket, in closed form. Every moving ball covers
+     * the same multiple of its speed over any number of ticks, so contacts
+     * are found once for the ticks before the first ball comes to rest, with
+     * that multiple standing in for time. The balls are then moved straight
+     * to the start of the tick the contact is in, which is stepped as normal.
+     */
+    private void fastForward() {
+        settle();
+        int window = Integer.MAX_VALUE; //The ticks before the first moving ball comes to rest.
+        for (int k = 0; k < awakeCount; k++) {
+            final int i = awake[k];
+            window = Math.min(window, Friction.ticksToRest(store.vx[i], store.vy[i]));
+        }
+        if (awakeCount == 0 || window <= 1) {
+            return;
+        }
+        findContact(Friction.travel(window));
+        int ticks = window;
+        if (hitKind != HIT_NONE) {
+            ticks = (int) Math.min(window, Math.floor(Friction.timeAt(0, hitTime)));
+        }
+        if (ticks <= 0) {
+            return;
+        }
+        final double s = Friction.travel(ticks), k = Math.pow(Friction.KEEP, ticks);
+        final double[] x = store.x, y = store.y, vx = store.vx, vy = store.vy;
+        for (int n = 0; n < awakeCount; n++) {
+            final int i = awake[n];
+            x[i] += vx[i] * s;
+            y[i] += vy[i] * s;
+            vx[i] *= k;
+            vy[i] *= k;
+            grid.update(i, x[i], y[i]);
+        }
+        metrics.recordSkipped(ticks);
+    }
+
+    /**
+     * Gets the counts kept about the work done stepping this world.
+     *
+     * @return The metrics of this world.
+     */
+    public PhysicsMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets how each tick of the world is stepped.
+     *
+     * @param m The mode to step ticks in.
+     */
+    public void setMode(Mode m) {
+        this.mode = m;
+    }
+
+    /**
+     * Gets how each tick of the world is stepped.
+     *
+     * @return The mode ticks are stepped in.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Advances every ball on the table by one tick, and publishes the result
+     * to the renderer. Balls given a speed since the last step are woken
+     * first, as a step may be taken outside of a shot.
+     */
+    public void step() {
+        stepping = true;
+        wakeMovers();
+        tick();
+        stepping = false;
+        publish(true);
+    }
+
+    /**
+     * Publishes the positions of the balls to the renderer as the latest
+     * snapshot, and asks the arena for a frame to show them. Balls are moved
+     * through the store, which the arena can't see.
+     *
+     * @param stepped True if the balls have been moved by stepping, so are
+     * drawn moving smoothly from where they were, or false if they have been
+     * placed by hand.
+     */
+    void publish(boolean stepped) {
+        table.getSnapshots().publish(store, stepped);
+        table.getSnookerGA().requestFrame();
+    }
+
+    /**
+     * Publishes a ball moved outside of a step, such as one placed back on the
+     * table. Balls moved within a step are published with the whole step, so
+     * the renderer never sees part of one.
+     */
+    void ballMoved() {
+        if (!stepping) {
+            publish(false);
+        }
+    }
+
+    /**
+     * Advances every ball on the table by one tick.
+     */
+    private void tick() {
+        settle();
+        if (mode == Mode.SUBSTEP) {
+            substepTick();
+        } else {
+            sweptTick();
+            metrics.recordTick(1);
+        }
+        final double[] vx = store.vx, vy = store.vy;
+        for (int k = 0; k < awakeCount; k++) {
+            final int i = awake[k];
+            vx[i] -= Math.copySign(vx[i] * FRICTION, vx[i]); //Reduce percentage of X and Y speed.
+            vy[i] -= Math.copySign(vy[i] * FRICTION, vy[i]);
+        }
+    }
+
+    /**
+     * Wakes every ball that has been given a speed since the world last
+     * looked, such as the white ball when it is struck. Called once at the
+     * start of each shot or step, as it looks at every ball on the table.
+     */
+    void wakeMovers() {
+        final double[] vx = store.vx, vy = store.vy;
+        final byte[] state = store.state;
+        for (int i = 0; i < store.size(); i++) {
+            if (state[i] != BallStore.POCKETED && (Math.abs(vx[i]) > REST_SPEED || Math.abs(vy[i]) > REST_SPEED)) {
+                state[i] = BallStore.MOVING;
+                wake(i);
+            }
+        }
+    }
+
+    /**
+     * Puts the awake balls moving below the rest speed at the start of a tick
+     * to sleep, stopping them where they are.
+     */
+    void settle() {
+        final double[] vx = store.vx, vy = store.vy;
+        final byte[] state = store.state;
+        for (int k = awakeCount - 1; k >= 0; k--) { //Backwards, so the ball swapped into a freed place has already been seen.
+            final int i = awake[k];
+            if (state[i] == BallStore.MOVING && (Math.abs(vx[i]) > REST_SPEED || Math.abs(vy[i]) > REST_SPEED)) {
+                continue;
+            }
+            if (state[i] != BallStore.POCKETED) {
+                state[i] = BallStore.STATIONARY;
+            }
+            vx[i] = 0;
+            vy[i] = 0;
+            sleep(i);
+        }
+    }
+
+    /**
+     * Adds a ball to the moving balls, if it is not already among them.
+     *
+     * @param i The id of the ball.
+     */
+    void wake(int i) {
+        if (awakeSlot[i] < 0) {
+            awakeSlot[i] = awakeCount;
+            awake[awakeCount++] = i;
+        }
+    }
+
+    /**
+     * Takes a ball out of the moving balls, moving the last of them into its
+     * place.
+     *
+     * @param i The id of the ball.
+     */
+    void sleep(int i) {
+        final int k = awakeSlot[i];
+        if (k >= 0) {
+            final int last = awake[--awakeCount];
+            awake[k] = last;
+            awakeSlot[last] = k;
+            awakeSlot[i] = -1;
+        }
+    }
+
+    /**
+     * Stops every moving ball where it is and puts it to sleep, as when a
+     * shot is cut short.
+     */
+    private void stopAll() {
+        final byte[] state = store.state;
+        while (awakeCount > 0) {
+            final int i = awake[awakeCount - 1];
+            store.vx[i] = 0;
+            store.vy[i] = 0;
+            if (state[i] != BallStore.POCKETED) {
+                state[i] = BallStore.STATIONARY;
+            }
+            sleep(i);
+            placeInGrid(i);
+        }
+    }
+
+    /**
+     * Gets the number of balls currently moving in this world.
+     *
+     * @return The number of awake balls.
+     */
+    public int getAwakeCount() {
+        return awakeCount;
+    }
+
+    /**
+     * Moves the balls through one tick by jumping from each contact to the
+     * next.
+     */
+    private void sweptTick() {
+        double remaining = 1;
+        for (int contacts = 0; contacts < MAX_CONTACTS; contacts++) {
+            findContact(remaining);
+            if (hitKind == HIT_NONE) {
+                break;
+            }
+            moveAll(hitTime);
+            remaining -= hitTime;
+            resolveContact();
+        }
+        moveAll(remaining);
+    }
+
+    /**
+     * Moves every moving ball along its current speed for a part of a tick.
+     *
+     * @param time The part of a tick to move the balls for.
+     */
+    private void moveAll(double time) {
+        final double[] x = store.x, y = store.y, vx = store.vx, vy = store.vy;
+        for (int k = 0; k < awakeCount; k++) {
+            final int i = awake[k];
+            x[i] += vx[i] * time;
+            y[i] += vy[i] * time;
+            grid.update(i, x[i], y[i]);
+        }
+    }
+
+    /**
+     * Finds the earliest contact within a given time between a moving ball and
+     * another ball, a cushion or a pocket, leaving it in hitTime, hitKind, hitA
+     * and hitB.
+     *
+     * @param limit The time to look ahead.
+     */
+    private void findContact(double limit) {
+        final double[] x = store.x, y = store.y, vx = store.vx, vy = store.vy, r = store.radius;
+        final byte[] state = store.state;
+        hitKind = HIT_NONE;
+        hitTime = limit;
+        double fastest = 0;
+        for (int k = 0; k < awakeCount; k++) {
+            final int i = awake[k];
+            fastest = Math.max(fastest, Math.abs(vx[i]) + Math.abs(vy[i]));
+        }
+        pass++;
+        for (int k = 0; k < awakeCount; k++) { //Only moving balls can start a contact.
+            final int i = awake[k];
+            checked[i] = pass;
+            double t = Sweep.wall(x[i], vx[i], minX + r[i], maxX - r[i]);
+            if (t <= hitTime) {
+                setHit(t, HIT_CUSHION_X, i, -1);
+            }
+            t = Sweep.wall(y[i], vy[i], minY + r[i], maxY - r[i]);
+            if (t <= hitTime) {
+                setHit(t, HIT_CUSHION_Y, i, -1);
+            }
+            for (int p = 0; p < pocketX.length; p++) {
+                t = Sweep.enter(x[i] - pocketX[p], y[i] - pocketY[p], vx[i], vy[i], pocketR[p]);
+                if (t <= hitTime) {
+                    setHit(t, HIT_POCKET, i, p);
+                }
+            }
+            //Any ball that could be reached lies within the distance both balls can travel, plus a diameter.
+            double reach = (Math.abs(vx[i]) + Math.abs(vy[i]) + fastest) * hitTime + 2 * r[i];
+            int lastColumn = grid.column(x[i] + reach), lastRow = grid.row(y[i] + reach);
+            for (int gy = grid.row(y[i] - reach); gy <= lastRow; gy++) {
+                for (int gx = grid.column(x[i] - reach); gx <= lastColumn; gx++) {
+                    for (int j = grid.first(gx, gy); j != -1; j = grid.next(j)) {
+                        if (checked[j] == pass || state[j] == BallStore.POCKETED) { //Skip itself and pairs already tested.
+                            continue;
+                        }
+                        t = Sweep.circles(x[j] - x[i], y[j] - y[i], vx[j] - vx[i], vy[j] - vy[i], r[i] + r[j]);
+                        if (t <= hitTime) {
+                            setHit(t, HIT_BALL, i, j);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a contact as the earliest found so far.
+     *
+     * @param t The time of the contact.
+     * @param kind The kind of contact.
+     * @param a The moving ball in the contact.
+     * @param b The other ball or pocket in the contact.
+     */
+    private void setHit(double t, int kind, int a, int b) {
+        hitTime = t;
+        hitKind = kind;
+        hitA = a;
+        hitB = b;
+    }
+
+    /**
+     * Resolves the contact found by findContact(), once the balls have been
+     * moved up to it.
+     */
+    private void resolveContact() {
+        final int i = hitA;
+        switch (hitKind) {
+            case HIT_BALL:
+                collide(i, hitB);
+                break;
+            case HIT_CUSHION_X:
+                bounceX(i);
+                break;
+            case HIT_CUSHION_Y:
+                bounceY(i);
+                break;
+            case HIT_POCKET:
+                pocket(i);
+                break;
+        }
+    }
+
+    /**
+     * Rests a ball against the left or right cushion and bounces it back.
+     *
+     * @param i The id of the ball.
+     */
+    void bounceX(int i) {
+        final double r = store.radius[i];
+        store.x[i] = Math.max(minX + r, Math.min(maxX - r, store.x[i]));
+        store.vx[i] = -store.vx[i];
+        grid.update(i, store.x[i], store.y[i]);
+        cushionHit(i);
+    }
+
+    /**
+     * Rests a ball against the top or bottom cushion and bounces it back.
+     *
+     * @param i The id of the ball.
+     */
+    void bounceY(int i) {
+        final double r = store.radius[i];
+        store.y[i] = Math.max(minY + r, Math.min(maxY - r, store.y[i]));
+        store.vy[i] = -store.vy[i];
+        grid.update(i, store.x[i], store.y[i]);
+        cushionHit(i);
+    }
+
+    /**
+     * Tells the turn listeners a ball has bounced off a cushion.
+     *
+     * @param i The id of the ball.
+     */
+    private void cushionHit(int i) {
+        for (TurnListener l : turnListeners) {
+            l.cushionHit(store.getBall(i));
+        }
+    }
+
+    /**
+     * Pockets a ball, and tells the turn listeners.
+     *
+     * @param i The id of the ball.
+     */
+    void pocket(int i) {
+        SnookerBall b = store.getBall(i);
+        b.pocketBall();
+        for (TurnListener l : turnListeners) {
+            l.ballPocketed(b);
+        }
+    }
+
+    /**
+     * Moves the balls through one tick in equal substeps, deflecting
+     * overlapping balls and pocketing balls after each. The tick is split into
+     * just enough substeps that the fastest ball moves no more than a set part
+     * of a radius in each, so creeping balls are stepped once per tick.
+     */
+    private void substepTick() {
+        final double[] x = store.x, y = store.y, vx = store.vx, vy = store.vy;
+        double fastest = 0;
+        for (int k = 0; k < awakeCount; k++) {
+            final int i = awake[k];
+            fastest = Math.max(fastest, vx[i] * vx[i] + vy[i] * vy[i]);
+        }
+        final int substeps = (int) Math.max(1, Math.min(MAX_SUBSTEPS, Math.ceil(Math.sqrt(fastest) / (SUBSTEP_TRAVEL * smallestRadius))));
+        metrics.recordTick(substeps);
+        for (int s = 0; s < substeps; s++) {
+            for (int k = 0; k < awakeCount; k++) {
+                final int i = awake[k];
+                x[i] += vx[i] / substeps;
+                y[i] += vy[i] / substeps;
+                grid.update(i, x[i], y[i]);
+            }
+            resolveCollisions();
+            for (int k = awakeCount - 1; k >= 0; k--) { //Backwards, as pocketing a ball puts it to sleep.
+                final int i = awake[k];
+                if (inAnyPocket(i)) {
+                    pocket(i); //Pocketing the ball also takes it out of the grid.
+                }
+            }
+        }
+        for (int k = 0; k < awakeCount; k++) {
+            final int i = awake[k];
+            if (store.getBall(i).boundaryCheck()) { //Check if the ball is out of bounds and correct accordingly.
+                cushionHit(i);
+            }
+            grid.update(i, x[i], y[i]);
+        }
+    }
+
+    /**
+     * Checks every moving ball against the balls in its own and adjacent grid
+     * cells, testing each pair once, and deflects those that overlap and are
+     * heading into each other.
+     */
+    private void resolveCollisions() {
+        final double[] x = store.x, y = store.y, vx = store.vx, vy = store.vy, r = store.radius;
+        final byte[] state = store.state;
+        pass++;
+        for (int k = 0; k < awakeCount; k++) { //Only moving balls can start a collision, including those woken this pass.
+            final int i = awake[k];
+            checked[i] = pass;
+            int column = grid.column(x[i]), row = grid.row(y[i]);
+            int lastColumn = Math.min(column + 1, grid.getColumns() - 1), lastRow = Math.min(row + 1, grid.getRows() - 1);
+            for (int gy = Math.max(row - 1, 0); gy <= lastRow; gy++) {
+                for (int gx = Math.max(column - 1, 0); gx <= lastColumn; gx++) {
+                    for (int j = grid.first(gx, gy); j != -1; j = grid.next(j)) {
+                        if (checked[j] == pass || state[j] == BallStore.POCKETED) { //Skip itself and pairs already tested this pass.
+                            continue;
+                        }
+                        double dx = x[j] - x[i], dy = y[j] - y[i], d = r[i] + r[j];
+                        boolean approaching = dx * (vx[j] - vx[i]) + dy * (vy[j] - vy[i]) < 0;
+                        if (dx * dx + dy * dy <= d * d && approaching) {
+                            collide(i, j);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a ball overlaps any other ball on the table that has not been
+     * pocketed, looking only in the grid cells around it.
+     *
+     * @param id The id of the ball.
+     * @return A boolean reflecting if the ball overlaps another.
+     */
+    public boolean overlapsAnyBall(int id) {
+        return overlapsAnyBall(id, store.x[id], store.y[id]);
+    }
+
+    /**
+     * Checks if a ball would overlap any other ball on the table that has not
+     * been pocketed, if it were at a given position.
+     *
+     * @param id The id of the ball.
+     * @param px The X coordinate to check the ball at.
+     * @param py The Y coordinate to check the ball at.
+     * @return A boolean reflecting if the ball would overlap another.
+     */
+    public boolean overlapsAnyBall(int id, double px, double py) {
+        final double[] x = store.x, y = store.y, r = store.radius;
+        int column = grid.column(px), row = grid.row(py);
+        int lastColumn = Math.min(column + 1, grid.getColumns() - 1), lastRow = Math.min(row + 1, grid.getRows() - 1);
+        for (int gy = Math.max(row - 1, 0); gy <= lastRow; gy++) {
+            for (int gx = Math.max(column - 1, 0); gx <= lastColumn; gx++) {
+                for (int j = grid.first(gx, gy); j != -1; j = grid.next(j)) {
+                    double dx = x[j] - px, dy = y[j] - py, d = r[j] + r[id];
+                    if (j != id && store.state[j] != BallStore.POCKETED && dx * dx + dy * dy <= d * d) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves a ball to the grid cell for its current position, or takes it out
+     * of the grid and puts it to sleep if it has been pocketed.
+     *
+     * @param id The id of the ball.
+     */
+    public void placeInGrid(int id) {
+        if (store.state[id] == BallStore.POCKETED) {
+            grid.remove(id);
+            sleep(id);
+        } else {
+            grid.update(id, store.x[id], store.y[id]);
+        }
+    }
+
+    /**
+     * Brings every ball's place in the grid up to date with the store.
+     */
+    private void syncGrid() {
+        for (int i = 0; i < store.size(); i++) {
+            placeInGrid(i);
+        }
+    }
+
+    /**
+     * Deflects two colliding balls, waking them both, and records the first
+     * contact of the white ball, telling the turn listeners of it.
+     *
+     * @param i The id of the first ball in the collision.
+     * @param j The id of the second ball in the collision.
+     */
+    void collide(int i, int j) {
+        SnookerBall a = store.getBall(i), b = store.getBall(j);
+        if (store.state[i] == BallStore.MOVING) { //The moving ball is the one that deflects the other.
+            a.deflect(b);
+        } else {
+            b.deflect(a);
+        }
+        wake(i);
+        wake(j);
+        if (a instanceof SnookerWhiteBall) {
+            firstContact((SnookerWhiteBall) a, b);
+        } else if (b instanceof SnookerWhiteBall) {
+            firstContact((SnookerWhiteBall) b, a);
+        }
+    }
+
+    /**
+     * Records a contact of the white ball, telling the turn listeners if it is
+     * the first of the shot.
+     *
+     * @param white The white ball.
+     * @param hit The ball the white ball hit.
+     */
+    private void firstContact(SnookerWhiteBall white, SnookerBall hit) {
+        if (white.isColided()) {
+            return;
+        }
+        white.updateContactInfo(hit); //Assigns first collision information.
+        for (TurnListener l : turnListeners) {
+            l.firstContact(white, hit);
+        }
+    }
+
+    /**
+     * Determines if a ball is over the area considered to be "in" any pocket.
+     *
+     * @param i The id of the ball.
+     * @return A boolean representing if the ball is in the area of a pocket.
+     */
+    boolean inAnyPocket(int i) {
+        return inAnyPocket(store.x[i], store.y[i]);
+    }
+
+    /**
+     * Determines if a point is in the area considered to be "in" any pocket.
+     *
+     * @param x The X coordinate of the point.
+     * @param y The Y coordinate of the point.
+     * @return A boolean representing if the point is in the area of a pocket.
+     */
+    boolean inAnyPocket(double x, double y) {
+        for (int p = 0; p < pocketX.length; p++) {
+            double dx = x - pocketX[p], dy = y - pocketY[p];
+            if (dx * dx + dy * dy <= pocketR[p] * pocketR[p]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
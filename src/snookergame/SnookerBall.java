@@ -1,58 +1,135 @@
 package snookergame;
 
-import dist.Circle;
 import java.awt.geom.Point2D;
-import java.util.ArrayList;
 
 /**
- * This class represents a SnookerBall on the SnookerTable. It hold information
- * about the ball and is responsible for moving, its own collision and keep
- * track of its state.
+ * This class represents a SnookerBall on the SnookerTable. It is a view onto
+ * the slot of the table's BallStore that holds the position, speed, state and
+ * score of this ball.
  *
  * @author DominicWild
  */
-public class SnookerBall extends dist.Circle implements Runnable {
+public class SnookerBall extends dist.Circle {
 
-    private double xSpeed;				// The effective speed of this ball in the X axis.
-    private double ySpeed;				// The effective speed of this ball in the Y axis.
-    private Point2D.Double prevPoint;                   //The previous point this ball was at before the move() was called.
-    private State ballState = State.STATIONARY;         //The state the ball currently is.
-    private SnookerTable table;                         //The table this ball is on.
-    private final int score;                                  //The score this ball is worth.
+    private final SnookerTable table;                   //The table this ball is on.
+    private final BallStore store;                      //The store holding the state of this ball.
+    private final int id;                               //The slot of this ball in the store.
 
+    /**
+     * Obtains the current position of this ball.
+     *
+     * @return the X coordinate of this ball within the GameArena.
+     */
     @Override
-    public void run() {
-        enterMovePhase();
+    public double getXPosition() {
+        return store.x[id];
     }
 
     /**
-     * Begins handling move information and setting variables accordingly.
+     * Obtains the current position of this ball.
+     *
+     * @return the Y coordinate of this ball within the GameArena.
      */
-    private void enterMovePhase() {
-        if (this.getXPosition() > 50 && this.getYPosition() > 50) {
-            prevPoint = new Point2D.Double(this.getXPosition(), this.getYPosition());
-        }
-        while (table.isABallMoving()) { //Keep attempting to move the ball until all balls are not moving.
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException ex) {
+    @Override
+    public double getYPosition() {
+        return store.y[id];
+    }
 
-            }
-            this.move();
+    /**
+     * Moves the current position of this ball to the given co-ordinate.
+     *
+     * @param x the new x co-ordinate of this ball
+     */
+    @Override
+    public void setXPosition(double x) {
+        store.x[id] = x;
+        this.changed();
+    }
+
+    /**
+     * Moves the current position of this ball to the given co-ordinate.
+     *
+     * @param y the new y co-ordinate of this ball
+     */
+    @Override
+    public void setYPosition(double y) {
+        store.y[id] = y;
+        this.changed();
+    }
+
+    /**
+     * Records that this ball has been moved. Outside of a step of the physics,
+     * such as when a ball is replaced after a foul, the move is published to
+     * the renderer straight away; within a step it is published with the rest
+     * of the step.
+     */
+    @Override
+    protected void changed() {
+        super.changed();
+        PhysicsWorld physics = table.getPhysics();
+        if (physics != null) {
+            physics.ballMoved();
         }
     }
 
+    /**
+     * Obtains the position this ball is drawn at, from the snapshot of the
+     * frame being drawn rather than the store the physics is writing to.
+     *
+     * @return The X coordinate this ball is drawn at.
+     */
+    @Override
+    protected double getDrawXPosition() {
+        BallSnapshot s = table.getSnapshots().getDrawing();
+        return s != null && id < s.size() ? s.getX(id) : store.x[id];
+    }
+
+    /**
+     * Obtains the position this ball is drawn at, from the snapshot of the
+     * frame being drawn.
+     *
+     * @return The Y coordinate this ball is drawn at.
+     */
+    @Override
+    protected double getDrawYPosition() {
+        BallSnapshot s = table.getSnapshots().getDrawing();
+        return s != null && id < s.size() ? s.getY(id) : store.y[id];
+    }
+
+    /**
+     * Determines if this ball is drawn, which it is not once the snapshot of
+     * the frame being drawn has it pocketed.
+     *
+     * @return True if this ball is drawn.
+     */
+    @Override
+    protected boolean isDrawVisible() {
+        BallSnapshot s = table.getSnapshots().getDrawing();
+        return s == null || id >= s.size() || s.isVisible(id);
+    }
+
+    /**
+     * Gets the id of this ball within its table's BallStore.
+     *
+     * @return The id of this ball.
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Checks if a ball has hit a boundary (side of the table).
+     *
+     * @return True if the ball was out of bounds and has been bounced back.
      */
-    private void boundaryCheck() {
+    boolean boundaryCheck() {
         double inX, inY; //The x and y coordinates that are out of bounds, if not they're in bounds = -1.
-        double x = this.getXPosition(); //Assign short hand for current values.
-        double y = this.getYPosition();
-        double r = this.getSize() / 2; //Radius
+        double x = store.x[id]; //Assign short hand for current values.
+        double y = store.y[id];
+        double r = store.radius[id];
         Point2D.Double[] bP = table.getBoundPoints(); //The bounds of the table. Upper left and bottom right point of the rectangle.
-        inX = this.inBoundX(bP[0].x, bP[1].x);
-        inY = this.inBoundY(bP[0].y, bP[1].y);
+        inX = outOfBounds(x, r, bP[0].x, bP[1].x);
+        inY = outOfBounds(y, r, bP[0].y, bP[1].y);
         if (!(inX == -1) && !(inY == -1)) { //If both x and y are out of bounds.
             this.setSpeed(this.getXSpeed() * -1, this.getYSpeed() * -1); //Invert both speeds direction.
             if (bP[1].x > inX && bP[1].y > inY) { //Set center point based on where specifically out of bounds on the board the ball is.
@@ -64,6 +141,7 @@ public class SnookerBall extends dist.Circle implements Runnable {
             } else if (bP[0].x < inX && bP[1].y > inY) {
                 this.setPosition(x - r, y + r);
             }
+            return true;
         } else if (!(inX == -1)) { //If only X is out of bounds.
             this.setSpeed(this.getXSpeed() * -1, this.getYSpeed());
             if (bP[0].x >= inX) { //Set center point based on where specifically out of bounds on the board the ball is.
@@ -71,6 +149,7 @@ public class SnookerBall extends dist.Circle implements Runnable {
             } else if (bP[1].x <= inX) {
                 this.setXPosition(bP[1].x - r);
             }
+            return true;
         } else if (!(inY == -1)) { //If only Y is out of bounds.
             this.setSpeed(this.getXSpeed(), this.getYSpeed() * -1);
             if (bP[0].y >= inY) { //Set center point based on where specifically out of bounds on the board the ball is.
@@ -78,18 +157,21 @@ public class SnookerBall extends dist.Circle implements Runnable {
             } else if (bP[1].y <= inY) {
                 this.setYPosition(bP[1].y - r);
             }
+            return true;
         }
+        return false;
     }
 
     /**
-     * Sets the holistic position of this ball.
+     * Sets the holistic position of this ball, as a single move.
      *
      * @param x X position to set to.
      * @param y Y position to set to.
      */
     public void setPosition(double x, double y) {
-        this.setXPosition(x);
-        this.setYPosition(y);
+        store.x[id] = x;
+        store.y[id] = y;
+        this.changed();
     }
 
     /**
@@ -127,8 +209,9 @@ public class SnookerBall extends dist.Circle implements Runnable {
      */
     public SnookerBall(double x, double y, double diameter, String col, int lay, SnookerTable s, int score) {
         super(x, y, diameter, col, lay);
-        this.score = score;
         this.table = s;
+        this.store = s.getStore();
+        this.id = store.add(this, x, y, diameter / 2, score);
     }
 
     /**
@@ -162,13 +245,7 @@ public class SnookerBall extends dist.Circle implements Runnable {
      * bounds.
      */
     public double inBoundX(double x1, double x2) {
-        Point2D.Double[] points = calculateHitBox();
-        for (int i = 0; i < 4; i++) {
-            if (!(x1 < points[i].x && x2 > points[i].x)) { //If not in bounds.
-                return points[i].x;
-            }
-        }
-        return -1;
+        return outOfBounds(store.x[id], store.radius[id], x1, x2);
     }
 
     /**
@@ -182,11 +259,28 @@ public class SnookerBall extends dist.Circle implements Runnable {
      * bounds.
      */
     public double inBoundY(double y1, double y2) {
-        Point2D.Double[] points = calculateHitBox();
-        for (int i = 0; i < 4; i++) {
-            if (!(y1 < points[i].y && y2 > points[i].y)) { //If not in bounds.
-                return points[i].y;
-            }
+        return outOfBounds(store.y[id], store.radius[id], y1, y2);
+    }
+
+    /**
+     * Gets the coordinate along one axis of the first point of a hit box that
+     * lies out of bounds, checking the points in the order calculateHitBox()
+     * gives them: the centre, the lower edge, the centre again and the upper
+     * edge.
+     *
+     * @param c The coordinate of the centre of the ball on the axis.
+     * @param r The radius of the ball.
+     * @param c1 The first bound point.
+     * @param c2 The second bound point.
+     * @return The coordinate that is out of bounds or -1 if not out of bounds.
+     */
+    private static double outOfBounds(double c, double r, double c1, double c2) {
+        if (!(c1 < c && c2 > c)) { //If not in bounds.
+            return c;
+        } else if (!(c1 < c - r && c2 > c - r)) {
+            return c - r;
+        } else if (!(c1 < c + r && c2 > c + r)) {
+            return c + r;
         }
         return -1;
     }
@@ -197,7 +291,7 @@ public class SnookerBall extends dist.Circle implements Runnable {
      * @return the X speed of this Ball within the GameArena.
      */
     public double getXSpeed() {
-        return xSpeed;
+        return store.vx[id];
     }
 
     /**
@@ -206,7 +300,7 @@ public class SnookerBall extends dist.Circle implements Runnable {
      * @return the Y speed of this Ball within the GameArena.
      */
     public double getYSpeed() {
-        return ySpeed;
+        return store.vy[id];
     }
 
     /**
@@ -216,84 +310,11 @@ public class SnookerBall extends dist.Circle implements Runnable {
      * @param ySpeed Set the speed component of this ball in the Y direction
      */
     public void setSpeed(double xSpeed, double ySpeed) {
-        this.xSpeed = xSpeed;
-        this.ySpeed = ySpeed;
+        store.vx[id] = xSpeed;
+        store.vy[id] = ySpeed;
         if (xSpeed != 0 || ySpeed != 0) {
-            this.ballState = State.MOVING;
-        }
-    }
-
-    /**
-     * Attempts to move the current ball in relation to its current speed.
-     */
-    private void move() {
-        if (Math.abs(xSpeed) > 0.1 || Math.abs(ySpeed) > 0.1) { //If moving below these speeds, the ball is considered not moving.
-            this.ballState = State.MOVING;
-            /**
-             * Moves using current speed over a 25 part interval to ensure the
-             * ball does not fall out of bounds by a huge range and waste speed.
-             */
-            Point2D.Double inc = new Point2D.Double(xSpeed / 25, ySpeed / 25);
-            for (int i = 0; i < 25; i++) {
-                this.xPosition = this.xPosition + inc.x;
-                this.yPosition = this.yPosition + inc.y;
-                collisionCheck();
-                if (inAnyPockets()) {
-                    this.pocketBall();
-                    return; //If pocketed, moving is no longer relevent.
-                }
-            }
-            boundaryCheck(); //Check if the ball is out of bounds and correct accordingly.
-            this.xSpeed = this.xSpeed - Math.copySign(xSpeed * 0.01, xSpeed); //Reduce percentage of X and Y speed.
-            this.ySpeed = this.ySpeed - Math.copySign(ySpeed * 0.01, ySpeed);
-        } else {
-            if (this.getBallState() != State.POCKETED) {
-                this.ballState = State.STATIONARY;
-            }
-            stopBall(); //Set the values of the ball to 0, so it will eventually stop moving.
-        }
-    }
-
-    /**
-     * Alternate version of collision check without parameter toDeflect,
-     * defaulting to true.
-     */
-    private void collisionCheck() {
-        this.collisionCheck(true);
-    }
-
-    /**
-     * Checks for collision between the current ball and any other balls on the
-     * table.
-     *
-     * @param toDeflect A parameter indicating whether to deflect the balls on
-     * collision.
-     * @return A boolean reflecting on if this ball is currently colliding with
-     * another ball.
-     */
-    private boolean collisionCheck(boolean toDeflect) {
-        SnookerBall b = this;
-        if (b.getBallState() == SnookerBall.State.MOVING || !toDeflect) {
-            ArrayList<SnookerBall> checkBalls = new ArrayList(table.getAllBalls());
-            checkBalls.remove(b); //Remove this ball, so it doesn't check itself.
-            for (SnookerBall b2 : checkBalls) { //Checks against all other balls.
-                Point2D.Double centB = b.getCenterPoint(), centB2 = b2.getCenterPoint();
-                double d = b.getSize();
-                //Sees if the balls areas overlap
-                if (circlePointColide(centB, centB2, d) && b2.getBallState() != State.POCKETED) {
-                    if (toDeflect) {
-                        b.deflect(b2); //Deflects them if required
-                    } else {
-                        return true; //If not indicates there is a collision
-                    }
-                    if (b instanceof SnookerWhiteBall) {
-                        SnookerWhiteBall wb = (SnookerWhiteBall) b;
-                        wb.updateContactInfo(b2); //Assigns first collision information.
-                    }
-                }
-            }
+            store.state[id] = BallStore.MOVING;
         }
-        return false;
     }
 
     /**
@@ -301,47 +322,33 @@ public class SnookerBall extends dist.Circle implements Runnable {
      * Snooker.
      */
     public void replaceBall() {
-        this.setPosition(prevPoint.x, prevPoint.y); //Attempts to put ball back where it was before movement.
-        if (!this.collisionCheck(false)) { //If there isn't a collision in putting it down on its original spot, place it back on the board.
-            table.getSnookerGA().addBall(this);
-        } else {
-            /**
-             * If there is a collision, move the ball north until there isn't a
-             * collision. If a Y bound is hit, begin moving it in the X
-             * direction west.
-             */
-            int yInc = -1;
-            int xInc = -1;
-            Point2D.Double[] bP = table.getBoundPoints();
-            while (this.collisionCheck(false) && !inAnyPockets()) { //Ensure no overlap with other balls or pockets.
-                if (prevPoint.y + yInc > bP[0].y && prevPoint.y + yInc < bP[1].y) {
-                    this.setPosition(prevPoint.x, prevPoint.y + yInc);
-                    yInc -= 1;
-                } else {
-                    this.setPosition(prevPoint.x + xInc, prevPoint.y);
-                    xInc -= 1;
-                }
+        PhysicsWorld physics = table.getPhysics();
+        double prevX = store.prevX[id], prevY = store.prevY[id];
+        double x = prevX, y = prevY; //Attempts to put ball back where it was before movement.
+        /**
+         * If there is a collision, move the ball north until there isn't a
+         * collision. If a Y bound is hit, begin moving it in the X direction
+         * west. The spot is searched for without moving the ball, so it is
+         * only moved, and shown moving, once.
+         */
+        int yInc = -1;
+        int xInc = -1;
+        Point2D.Double[] bP = table.getBoundPoints();
+        while (physics.overlapsAnyBall(id, x, y) && !physics.inAnyPocket(x, y)) { //Ensure no overlap with other balls or pockets.
+            if (prevY + yInc > bP[0].y && prevY + yInc < bP[1].y) {
+                x = prevX;
+                y = prevY + yInc;
+                yInc -= 1;
+            } else {
+                x = prevX + xInc;
+                y = prevY;
+                xInc -= 1;
             }
-            table.getSnookerGA().addBall(this);
         }
         this.setBallState(State.STATIONARY);
-    }
-
-    /**
-     * Determines if the current ball is over any area considered to be "in" the
-     * pocket.
-     *
-     * @return A boolean representing if the current ball is in the area of a
-     * pocket.
-     */
-    private boolean inAnyPockets() {
-        Point2D.Double c = this.getCenterPoint();
-        for (Circle p : table.getPockets()) {
-            if (circlePointColide(p.getCenterPoint(), c, p.getSize())) {
-                return true;
-            }
-        }
-        return false;
+        this.setPosition(x, y);
+        physics.placeInGrid(id);
+        table.getSnookerGA().addBall(this);
     }
 
     /**
@@ -358,71 +365,48 @@ public class SnookerBall extends dist.Circle implements Runnable {
      */
     public void deflect(SnookerBall b) {
         // Calculate initial momentum of the balls... We assume unit mass here.
-        double p1InitialMomentum = Math.sqrt(this.xSpeed * this.xSpeed + this.ySpeed * this.ySpeed);
-        double p2InitialMomentum = Math.sqrt(b.xSpeed * b.xSpeed + b.ySpeed * b.ySpeed);
-
-        // calculate motion vectors
-        double[] p1Trajectory = {this.xSpeed, this.ySpeed};
-        double[] p2Trajectory = {b.xSpeed, b.ySpeed};
-
-        // Calculate Impact Vector
-        double[] impactVector = {b.xPosition - this.xPosition, b.yPosition - this.yPosition};
-        double[] impactVectorNorm = normalizeVector(impactVector);
+        final double[] vx = store.vx, vy = store.vy;
+        final int i = this.id, j = b.id;
+        double p1InitialMomentum = Math.sqrt(vx[i] * vx[i] + vy[i] * vy[i]);
+        double p2InitialMomentum = Math.sqrt(vx[j] * vx[j] + vy[j] * vy[j]);
+
+        // Calculate the unit impact vector, pointing straight along x if the centres are the same.
+        double impactX = store.x[j] - store.x[i], impactY = store.y[j] - store.y[i];
+        double impactLength = Math.sqrt(impactX * impactX + impactY * impactY);
+        if (impactLength == 0.0) {
+            impactX = 1.0;
+            impactY = 0.0;
+        } else {
+            impactX /= impactLength;
+            impactY /= impactLength;
+        }
 
         // Calculate scalar product of each trajectory and impact vector
-        double p1dotImpact = Math.abs(p1Trajectory[0] * impactVectorNorm[0] + p1Trajectory[1] * impactVectorNorm[1]);
-        double p2dotImpact = Math.abs(p2Trajectory[0] * impactVectorNorm[0] + p2Trajectory[1] * impactVectorNorm[1]);
+        double p1dotImpact = Math.abs(vx[i] * impactX + vy[i] * impactY);
+        double p2dotImpact = Math.abs(vx[j] * impactX + vy[j] * impactY);
 
         // Calculate the deflection vectors - the amount of energy transferred from one ball to the other in each axis
-        double[] p1Deflect = {-impactVectorNorm[0] * p2dotImpact, -impactVectorNorm[1] * p2dotImpact};
-        double[] p2Deflect = {impactVectorNorm[0] * p1dotImpact, impactVectorNorm[1] * p1dotImpact};
+        double p1DeflectX = -impactX * p2dotImpact, p1DeflectY = -impactY * p2dotImpact;
+        double p2DeflectX = impactX * p1dotImpact, p2DeflectY = impactY * p1dotImpact;
 
         // Calculate the final trajectories 
-        double[] p1FinalTrajectory = {p1Trajectory[0] + p1Deflect[0] - p2Deflect[0], p1Trajectory[1] + p1Deflect[1] - p2Deflect[1]};
-        double[] p2FinalTrajectory = {p2Trajectory[0] + p2Deflect[0] - p1Deflect[0], p2Trajectory[1] + p2Deflect[1] - p1Deflect[1]};
+        double p1FinalX = vx[i] + p1DeflectX - p2DeflectX, p1FinalY = vy[i] + p1DeflectY - p2DeflectY;
+        double p2FinalX = vx[j] + p2DeflectX - p1DeflectX, p2FinalY = vy[j] + p2DeflectY - p1DeflectY;
 
         // Calculate the final energy in the system.
-        double p1FinalMomentum = Math.sqrt(p1FinalTrajectory[0] * p1FinalTrajectory[0] + p1FinalTrajectory[1] * p1FinalTrajectory[1]);
-        double p2FinalMomentum = Math.sqrt(p2FinalTrajectory[0] * p2FinalTrajectory[0] + p2FinalTrajectory[1] * p2FinalTrajectory[1]);
+        double p1FinalMomentum = Math.sqrt(p1FinalX * p1FinalX + p1FinalY * p1FinalY);
+        double p2FinalMomentum = Math.sqrt(p2FinalX * p2FinalX + p2FinalY * p2FinalY);
 
         // Scale the resultant trajectories if we've accidentally broken the laws of physics.
         double mag = (p1InitialMomentum + p2InitialMomentum) / (p1FinalMomentum + p2FinalMomentum);
 
         // Write back the scaled values and we're done.
-        this.xSpeed = p1FinalTrajectory[0] * mag;
-        this.ySpeed = p1FinalTrajectory[1] * mag;
-        b.xSpeed = p2FinalTrajectory[0] * mag;
-        b.ySpeed = p2FinalTrajectory[1] * mag;
-        this.ballState = State.MOVING;
-        b.ballState = State.MOVING; //Ensure both states are now that the balls are moving.
-        //Increment +1 on the direction of the speed, to ensure another collision doesn't occur immediantly after.
-        this.setXPosition(this.getXPosition() + (int) Math.signum(xSpeed));
-        this.setYPosition(this.getYPosition() + (int) Math.signum(ySpeed));
-    }
-
-    /**
-     * Converts a vector into a unit vector. Internal method - used by the
-     * deflect() method to calculate the resultant direction after a collision.
-     */
-    private double[] normalizeVector(double[] vec) {
-        double mag = 0.0;
-        int dimensions = vec.length;
-        double[] result = new double[dimensions];
-        for (int i = 0; i < dimensions; i++) {
-            mag += vec[i] * vec[i];
-        }
-        mag = Math.sqrt(mag);
-        if (mag == 0.0) {
-            result[0] = 1.0;
-            for (int i = 1; i < dimensions; i++) {
-                result[i] = 0.0;
-            }
-        } else {
-            for (int i = 0; i < dimensions; i++) {
-                result[i] = vec[i] / mag;
-            }
-        }
-        return result;
+        vx[i] = p1FinalX * mag;
+        vy[i] = p1FinalY * mag;
+        vx[j] = p2FinalX * mag;
+        vy[j] = p2FinalY * mag;
+        store.state[i] = BallStore.MOVING;
+        store.state[j] = BallStore.MOVING; //Ensure both states are now that the balls are moving.
     }
 
     /**
@@ -431,7 +415,7 @@ public class SnookerBall extends dist.Circle implements Runnable {
      * @return The state of this ball.
      */
     public State getBallState() {
-        return ballState;
+        return store.getState(id);
     }
 
     /**
@@ -440,7 +424,7 @@ public class SnookerBall extends dist.Circle implements Runnable {
      * @param ballState The state to set this ball.
      */
     public void setBallState(State ballState) {
-        this.ballState = ballState;
+        store.setState(id, ballState);
     }
 
     /**
@@ -448,10 +432,10 @@ public class SnookerBall extends dist.Circle implements Runnable {
      * this.
      */
     public void pocketBall() {
-        table.getGame().getrBalls().add(this);
         stopBall();
         this.setPosition(0, 0);
         this.setBallState(SnookerBall.State.POCKETED);
+        table.getPhysics().placeInGrid(id);
         table.getSnookerGA().removeBall(this);
     }
 
@@ -461,7 +445,7 @@ public class SnookerBall extends dist.Circle implements Runnable {
      * @return The value this ball is worth when pocketed.
      */
     public int getScore() {
-        return score;
+        return store.score[id];
     }
 
 }
@@ -34,10 +34,21 @@ public class SnookerCue extends dist.Line implements MouseMotionListener {
 
     @Override
     public void mouseMoved(MouseEvent e) {
-        alignCue(e.getPoint()); //Align the cue with the current mouse position.
+        aimAt(e.getX(), e.getY());
+    }
+
+    /**
+     * Aligns the cue with a point on the table and shows the speed the white
+     * ball would be launched at from there.
+     *
+     * @param x The X coordinate to aim from.
+     * @param y The Y coordinate to aim from.
+     */
+    public void aimAt(int x, int y) {
+        alignCue(new Point(x, y)); //Align the cue with the current mouse position.
         //Calculate speeds for x and y directions based on distance from center of the white ball.
-        double xSpeed = Math.abs(table.getWhiteBall().getXPosition() - e.getX()) / GameInstance.speedDivFactor;
-        double ySpeed = Math.abs(table.getWhiteBall().getYPosition() - e.getY()) / GameInstance.speedDivFactor;
+        double xSpeed = Math.abs(table.getWhiteBall().getXPosition() - x) / GameInstance.speedDivFactor;
+        double ySpeed = Math.abs(table.getWhiteBall().getYPosition() - y) / GameInstance.speedDivFactor;
         if (xSpeed > GameInstance.maxXSpeed) { //Limit speed to the max speed for game instances.
             xSpeed = GameInstance.maxXSpeed;
         }
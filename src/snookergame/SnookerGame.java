@@ -1,18 +1,43 @@
 
 package snookergame;
 
+import dist.ArenaGrid;
+import dist.RenderScheduler;
+
 /**
  * The main class to initiate an instance of a Snooker game.
  * @author DominicWild
  */
 public class SnookerGame {
 
-    /** Main function to initiate the game.
+    /** Main function to initiate the game. Given a number of tables, opens
+     * them all in one window instead, drawn by a shared render scheduler.
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            openTables(Integer.parseInt(args[0]));
+            return;
+        }
         SnookerTable snookerTable = new SnookerTable(800, 600, 100);
         //SnookerTable snookerTable = new SnookerTable(1000, 800, 100);
     }
 
+    /**
+     * Opens a number of snooker tables in a grid in one window. The tables
+     * are drawn from a thread for each core, rather than a thread each, with
+     * the table last clicked drawn at the full frame rate and the rest at a
+     * lower one.
+     *
+     * @param count The number of tables to open.
+     */
+    private static void openTables(int count) {
+        RenderScheduler scheduler = new RenderScheduler(Runtime.getRuntime().availableProcessors());
+        int columns = (int) Math.ceil(Math.sqrt(count));
+        ArenaGrid grid = new ArenaGrid("Snooker", columns, scheduler);
+        for (int i = 0; i < count; i++) {
+            new SnookerTable(grid.addArena(400, 300), 50);
+        }
+    }
+
 }
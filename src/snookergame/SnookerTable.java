@@ -1,36 +1,39 @@
 package snookergame;
 
+import dist.Arena;
 import dist.Circle;
 import dist.GameArena;
 import dist.Line;
 import dist.Rectangle;
-import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.Arrays;
-import snookergame.SnookerBall.State;
 
 /**
- * Represents a SnookerTable and all its assets. It holds a GameArena which
- * holds the display of the table and visualisations of all balls, pockets cues
- * etc. This class handles placement of these elements.
+ * Represents a SnookerTable and all its assets. It holds an Arena which holds
+ * the display of the table and visualisations of all balls, pockets cues etc.
+ * This class handles placement of these elements. Given a HeadlessArena, the
+ * table can be built and played with no display.
  *
  * @author DominicWild
  */
 public class SnookerTable {
 
     private SnookerBall[] balls;                    //All the balls present on this table, excluding the white ball.
+    private final BallStore store = new BallStore(22); //The store holding the state of every ball on this table.
+    private BallSnapshots snapshots;                //The snapshots the balls are drawn from.
     private SnookerWhiteBall whiteBall;             //The white ball on this table.
     private Circle[] pockets;                //The pockets present on this table.
     private Line[] tableBounds;                     //The boundaries of the table, as 4 line objects.
     private Point2D.Double[] boundPoints;           //The points that bind the tables bounds.
     private Line baulkLine;                         //The line on the snooker table used for game rules.
     private Rectangle innerTable;                   //The inner part of the table, used the inner part of the bounds green.
-    private GameArena snookerGA;                    //The GameArena which houses the snooker table visual elements.
+    private Arena snookerGA;                        //The Arena which houses the snooker table visual elements.
     private SnookerCue cue;                         //The cue which is associated with this table.
     private SnookerPlayer[] players;                //The 2 players associated with this snooker table.
     private GameInstance game;                      //The game instance that handles the logic for snooker game.
     private GameInfoComponents infoComp;            //The game info components object that displays information on this snooker table.
+    private PhysicsWorld physics;                   //The physics world that moves the balls on this table.
 
     /**
      * Creates a new snooker table with specified width, height and indentation
@@ -42,11 +45,26 @@ public class SnookerTable {
      * within the JFrame.
      */
     public SnookerTable(int width, int height, int indent) {
-        //Creating the GameArena and innerTable objects.
-        int layer = 1;
+        this(new GameArena(width, height), indent);
+    }
+
+    /**
+     * Creates a new snooker table filling a given arena, with a specified
+     * indentation.
+     *
+     * @param arena The arena to house this snooker table, which sets the width
+     * and height of the table.
+     * @param indent The indentation that is used to displace the snooker table
+     * within the arena.
+     */
+    public SnookerTable(Arena arena, int indent) {
+        //Creating the innerTable object within the arena.
+        int width = arena.getArenaWidth();
+        int height = arena.getArenaHeight();
         int tableWidth = width - 2 * (indent);
         int tableHeight = height - 2 * (indent);
-        snookerGA = new GameArena(width, height);
+        snookerGA = arena;
+        snapshots = new BallSnapshots(arena);
         innerTable = new Rectangle(indent, indent, tableWidth, tableHeight, "DARKGREEN", 1);
         //Gets the 2 diagonal coordinates of the inner table for defining bounds.
         double x1 = innerTable.getXPosition();
@@ -88,12 +106,15 @@ public class SnookerTable {
         this.game = gI;
         //Add all the create objects to the game arena for display.
         placeSnookerBalls(diameter, (x1 + x2) / 2);
+        physics = new PhysicsWorld(this);
+        physics.addTurnListener(game); //The rules are applied as each shot comes to rest.
+        snookerGA.addFrameListener(snapshots); //Each frame draws the balls from the latest step of the physics.
         snookerGA.addBall(whiteBall);
         snookerGA.addText(players[0].getDisplay());
         snookerGA.addText(players[1].getDisplay());
         snookerGA.addRectangle(innerTable);
+        snookerGA.setStatic(innerTable, true); //The table itself never changes, so it need only be drawn once.
         snookerGA.addLine(cue);
-        snookerGA.setVisible(true);
         snookerGA.addMouseMotionListener(cue);
         //Select the current player for this table.
         game.selectCurrentPlayer();
@@ -117,6 +138,7 @@ public class SnookerTable {
         tableBounds[3] = new Line(x2, y2, x2, y1, thickness, colourBounds, layer);
         for (Line l : tableBounds) {
             snookerGA.addLine(l);
+            snookerGA.setStatic(l, true);
         }
     }
 
@@ -126,8 +148,8 @@ public class SnookerTable {
      * @return A boolean to represent if a ball is moving on this table.
      */
     public boolean isABallMoving() {
-        for (SnookerBall b : this.getAllBalls()) {
-            if (b.getBallState() == State.MOVING) {
+        for (int i = 0; i < store.size(); i++) {
+            if (store.state[i] == BallStore.MOVING) {
                 return true;
             }
         }
@@ -157,6 +179,7 @@ public class SnookerTable {
         pockets[5] = new Circle(x1 + pocketDisplacement, y2, size, colourPockets, layer);
         for (Circle b : pockets) {
             snookerGA.addBall(b);
+            snookerGA.setStatic(b, true);
         }
     }
 
@@ -225,6 +248,7 @@ public class SnookerTable {
         x1 += (baulkLineRatio * innerTable.getWidth());
         baulkLine = new Line(x1, y1, x1, y2, 1, "LIGHTGREY", 2);
         snookerGA.addLine(baulkLine);
+        snookerGA.setStatic(baulkLine, true);
     }
 
     /**
@@ -271,11 +295,11 @@ public class SnookerTable {
     }
 
     /**
-     * Gets the game arena object for this snooker table.
+     * Gets the arena object for this snooker table.
      *
-     * @return The game arena object for this snooker table.
+     * @return The arena object for this snooker table.
      */
-    public GameArena getSnookerGA() {
+    public Arena getSnookerGA() {
         return snookerGA;
     }
 
@@ -357,7 +381,7 @@ public class SnookerTable {
             snookerGA.addLine(this.cue);
             snookerGA.addMouseMotionListener(this.cue);
             //Makes the cue appear in the correct position if reappearing on the board after a persons turn.
-            this.cue.mouseMoved(new MouseEvent(snookerGA, 0, 0, 0, 0, 0, 0, false));
+            this.cue.aimAt(0, 0);
         } else {
             snookerGA.removeLine(this.cue);
             snookerGA.removeMouseMotionListener(this.cue);
@@ -373,6 +397,33 @@ public class SnookerTable {
         return game;
     }
 
+    /**
+     * Gets the store holding the state of every ball on this table.
+     *
+     * @return The BallStore for this SnookerTable.
+     */
+    public BallStore getStore() {
+        return store;
+    }
+
+    /**
+     * Gets the physics world that moves the balls on this table.
+     *
+     * @return The physics world for this SnookerTable.
+     */
+    public PhysicsWorld getPhysics() {
+        return physics;
+    }
+
+    /**
+     * Gets the snapshots the balls on this table are drawn from.
+     *
+     * @return The ball snapshots of this table.
+     */
+    public BallSnapshots getSnapshots() {
+        return snapshots;
+    }
+
     /**
      * Gets the game info components for this table.
      *
@@ -32,7 +32,6 @@ public class SnookerWhiteBall extends SnookerBall {
         if (!colided) { //Only update based on the first contacted ball, no others.
             this.colColision = b.getColour();
             this.colided = true;
-            System.out.printf("\ncolided = %b ColourCol = %s\n", colided, colColision);
         }
     }
 
@@ -0,0 +1,82 @@
+package snookergame;
+
+/**
+ * Time of impact tests for circles moving in straight lines. Times are in the
+ * same units as the speeds passed in, so with speeds given per tick a time of
+ * 0.5 is half way through the tick.
+ *
+ * @author DominicWild
+ */
+final class Sweep {
+
+    static final double NEVER = Double.POSITIVE_INFINITY;  //The time returned when there is no contact.
+
+    private Sweep() {
+    }
+
+    /**
+     * Finds when two circles closing on each other first touch.
+     *
+     * @param dx The X offset of the second circle from the first.
+     * @param dy The Y offset of the second circle from the first.
+     * @param dvx The X speed of the second circle relative to the first.
+     * @param dvy The Y speed of the second circle relative to the first.
+     * @param reach The distance between centres at which they touch.
+     * @return The time of contact, 0 if already touching and closing, or NEVER
+     * if they are not closing or will pass each other.
+     */
+    static double circles(double dx, double dy, double dvx, double dvy, double reach) {
+        double b = dx * dvx + dy * dvy;
+        if (b >= 0) { //Moving apart or keeping the same distance.
+            return NEVER;
+        }
+        double c = dx * dx + dy * dy - reach * reach;
+        if (c <= 0) {
+            return 0;
+        }
+        double a = dvx * dvx + dvy * dvy;
+        double disc = b * b - a * c;
+        if (disc < 0) { //Passes by without touching.
+            return NEVER;
+        }
+        return c / (-b + Math.sqrt(disc)); //The smaller root, in a form that doesn't lose precision when a is small.
+    }
+
+    /**
+     * Finds when a moving point first comes within a given distance of a fixed
+     * point.
+     *
+     * @param dx The X offset of the moving point from the fixed point.
+     * @param dy The Y offset of the moving point from the fixed point.
+     * @param vx The X speed of the moving point.
+     * @param vy The Y speed of the moving point.
+     * @param reach The distance from the fixed point to test against.
+     * @return The time the point comes within reach, 0 if it already is, or
+     * NEVER if it doesn't.
+     */
+    static double enter(double dx, double dy, double vx, double vy, double reach) {
+        if (dx * dx + dy * dy <= reach * reach) {
+            return 0;
+        }
+        return circles(dx, dy, vx, vy, reach);
+    }
+
+    /**
+     * Finds when a point moving along one axis reaches either end of a range.
+     *
+     * @param pos The position of the point on the axis.
+     * @param v The speed of the point along the axis.
+     * @param min The lower end of the range.
+     * @param max The upper end of the range.
+     * @return The time the point reaches the end it is heading for, 0 if it is
+     * already past it, or NEVER if it is not moving on this axis.
+     */
+    static double wall(double pos, double v, double min, double max) {
+        if (v < 0) {
+            return pos <= min ? 0 : (min - pos) / v;
+        } else if (v > 0) {
+            return pos >= max ? 0 : (max - pos) / v;
+        }
+        return NEVER;
+    }
+}
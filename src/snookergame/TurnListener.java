@@ -0,0 +1,47 @@
+package snookergame;
+
+/**
+ * Told by a PhysicsWorld as each shot plays out: when it starts, when the
+ * white ball first hits another ball, when balls are pocketed or hit a
+ * cushion, and when every ball has come to rest. Every event but the last is
+ * told on the thread stepping the shot, part way through a step, so should
+ * only note what happened and not move any balls. Once all the balls are at
+ * rest the shot is over, and the balls may be changed freely.
+ *
+ * @author DominicWild
+ */
+public interface TurnListener {
+
+    /**
+     * Called as a shot starts, before any ball has moved.
+     */
+    public void shotStarted();
+
+    /**
+     * Called the first time in a shot that the white ball hits another ball.
+     *
+     * @param white The white ball.
+     * @param hit The ball the white ball hit first.
+     */
+    public void firstContact(SnookerBall white, SnookerBall hit);
+
+    /**
+     * Called as a ball is pocketed.
+     *
+     * @param b The ball pocketed.
+     */
+    public void ballPocketed(SnookerBall b);
+
+    /**
+     * Called as a ball bounces off a cushion.
+     *
+     * @param b The ball that hit the cushion.
+     */
+    public void cushionHit(SnookerBall b);
+
+    /**
+     * Called once every ball has come to rest or been pocketed, ending the
+     * shot.
+     */
+    public void allAtRest();
+}